@@ -0,0 +1,207 @@
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded LRU cache of searchAvailableRooms results keyed by (dates, capacity).
+// The OccupancyCalendar reports every change, and only the entries it can
+// affect are dropped: those the room is large enough for that overlap the
+// changed days or, when the room's availability flag changed, any dates.
+// Entries are indexed by day and capacity so a change visits only its own.
+// A result computed while a change was published is returned but not
+// stored, so entries are never stale. Lookups, stores and invalidation take
+// no lock.
+public class AvailabilityCache implements AvailabilityCacheMBean, OccupancyCalendar.Listener {
+    private final int maxEntries;
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Entry> byLastUse = new ConcurrentSkipListMap<>();
+    private final Map<Long, Set<Entry>> byDay = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Entry>> byCapacity = new ConcurrentHashMap<>();
+    private final AtomicLong useClock = new AtomicLong();
+    private final AtomicLong lastChange = new AtomicLong(); // number of the newest version reported
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private static final class Key {
+        final LocalDate checkIn;
+        final LocalDate checkOut;
+        final int capacity;
+
+        Key(LocalDate checkIn, LocalDate checkOut, int capacity) {
+            this.checkIn = checkIn;
+            this.checkOut = checkOut;
+            this.capacity = capacity;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return capacity == other.capacity && checkIn.equals(other.checkIn) && checkOut.equals(other.checkOut);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(checkIn, checkOut, capacity);
+        }
+    }
+
+    // Compared by identity, so a replaced entry never unindexes its successor
+    private static final class Entry {
+        final Key key;
+        final List<Room> rooms;
+        volatile long lastUse;
+
+        Entry(Key key, List<Room> rooms, long lastUse) {
+            this.key = key;
+            this.rooms = rooms;
+            this.lastUse = lastUse;
+        }
+    }
+
+    public AvailabilityCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public List<Room> get(LocalDate checkIn, LocalDate checkOut, int capacity) {
+        Entry entry = entries.get(new Key(checkIn, checkOut, capacity));
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        long used = entry.lastUse;
+        if (byLastUse.remove(used, entry)) { // a concurrent hit or removal may have taken it first
+            long now = useClock.incrementAndGet();
+            entry.lastUse = now;
+            byLastUse.put(now, entry);
+        }
+        return entry.rooms;
+    }
+
+    // Caches rooms as the result of this search at version, unless a change
+    // published since then may not be reflected in it.
+    public List<Room> put(AvailabilityVersion version, LocalDate checkIn, LocalDate checkOut, int capacity,
+                          List<Room> rooms) {
+        List<Room> result = Collections.unmodifiableList(rooms);
+        Key key = new Key(checkIn, checkOut, capacity);
+        Entry entry = new Entry(key, result, useClock.incrementAndGet());
+        Entry replaced = entries.put(key, entry);
+        if (replaced != null) {
+            unindex(replaced);
+        }
+        index(entry);
+        if (entries.get(key) != entry) { // replaced or invalidated while being indexed
+            unindex(entry);
+            return result;
+        }
+        // A change reports itself before visiting the indexes, so either it
+        // finds this entry there or it is seen here.
+        if (lastChange.get() > version.getNumber()) {
+            discard(entry);
+            return result;
+        }
+        while (entries.size() > maxEntries) {
+            Map.Entry<Long, Entry> eldest = byLastUse.pollFirstEntry();
+            if (eldest == null) break;
+            if (discard(eldest.getValue())) {
+                evictions.increment();
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void occupancyChanged(Room room, long fromDay, long toDay, long version) {
+        lastChange.accumulateAndGet(version, Math::max);
+        for (long day = fromDay; day <= toDay; day++) {
+            Set<Entry> onDay = byDay.get(day);
+            if (onDay == null) continue;
+            for (Entry entry : onDay) {
+                if (entry.key.capacity <= room.getCapacity() && discard(entry)) {
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void availabilityChanged(Room room, boolean available, long version) {
+        lastChange.accumulateAndGet(version, Math::max);
+        for (Map.Entry<Integer, Set<Entry>> servable : byCapacity.entrySet()) {
+            if (servable.getKey() > room.getCapacity()) continue;
+            for (Entry entry : servable.getValue()) {
+                if (discard(entry)) {
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    // Removes the entry if it is still cached; false if it already was not
+    private boolean discard(Entry entry) {
+        if (!entries.remove(entry.key, entry)) return false;
+        unindex(entry);
+        return true;
+    }
+
+    private void index(Entry entry) {
+        for (long day = entry.key.checkIn.toEpochDay(); day <= entry.key.checkOut.toEpochDay(); day++) {
+            add(byDay, day, entry);
+        }
+        add(byCapacity, entry.key.capacity, entry);
+        byLastUse.put(entry.lastUse, entry);
+    }
+
+    private void unindex(Entry entry) {
+        for (long day = entry.key.checkIn.toEpochDay(); day <= entry.key.checkOut.toEpochDay(); day++) {
+            remove(byDay, day, entry);
+        }
+        remove(byCapacity, entry.key.capacity, entry);
+        byLastUse.remove(entry.lastUse, entry);
+    }
+
+    // Both run inside the map's compute, so an entry is never added to a set
+    // that is being dropped as empty.
+    private static <K> void add(Map<K, Set<Entry>> index, K key, Entry entry) {
+        index.compute(key, (k, set) -> {
+            Set<Entry> entries = set != null ? set : ConcurrentHashMap.newKeySet();
+            entries.add(entry);
+            return entries;
+        });
+    }
+
+    private static <K> void remove(Map<K, Set<Entry>> index, K key, Entry entry) {
+        index.computeIfPresent(key, (k, set) -> {
+            set.remove(entry);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    @Override public long getHits() { return hits.sum(); }
+    @Override public long getMisses() { return misses.sum(); }
+    @Override public long getEvictions() { return evictions.sum(); }
+    @Override public long getInvalidations() { return invalidations.sum(); }
+    @Override public int getSize() { return entries.size(); }
+
+    @Override
+    public double getHitRatio() {
+        long hits = getHits();
+        long lookups = hits + getMisses();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("availabilityCache size=%d hits=%d misses=%d evictions=%d invalidations=%d hitRatio=%.2f",
+                getSize(), getHits(), getMisses(), getEvictions(), getInvalidations(), getHitRatio());
+    }
+}
\ No newline at end of file
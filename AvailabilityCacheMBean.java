@@ -0,0 +1,8 @@
+public interface AvailabilityCacheMBean {
+    long getHits();
+    long getMisses();
+    long getEvictions();
+    long getInvalidations();
+    int getSize();
+    double getHitRatio();
+}
\ No newline at end of file
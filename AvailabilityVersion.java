@@ -0,0 +1,64 @@
+import java.util.Arrays;
+
+// One immutable point-in-time view of every room's availability flag and
+// occupancy. Rooms are addressed by slot in a two-level array of LEAF_SIZE
+// entries per leaf; with() copies the root and one leaf and shares the rest,
+// so publishing a change costs O(rooms / LEAF_SIZE + LEAF_SIZE).
+public final class AvailabilityVersion {
+    private static final int LEAF_SHIFT = 6;
+    private static final int LEAF_SIZE = 1 << LEAF_SHIFT;
+
+    public static final AvailabilityVersion EMPTY = new AvailabilityVersion(new RoomState[0][], 0, 0);
+
+    // A room's availability flag and occupied days as of one version
+    private static final class RoomState {
+        final boolean available;
+        final OccupancyBitmap occupancy;
+
+        RoomState(boolean available, OccupancyBitmap occupancy) {
+            this.available = available;
+            this.occupancy = occupancy;
+        }
+    }
+
+    private final RoomState[][] leaves;
+    private final int size;
+    private final long number;
+
+    private AvailabilityVersion(RoomState[][] leaves, int size, long number) {
+        this.leaves = leaves;
+        this.size = size;
+        this.number = number;
+    }
+
+    public boolean isAvailable(int slot) {
+        return state(slot).available;
+    }
+
+    public OccupancyBitmap occupancy(int slot) {
+        return state(slot).occupancy;
+    }
+
+    // Whether the room is available and clear for the precomputed range masks, see OccupancyBitmap.masks().
+    boolean isFree(int slot, long firstWord, long[] masks) {
+        RoomState state = state(slot);
+        return state.available && state.occupancy.isClear(firstWord, masks);
+    }
+
+    // Version with the room at slot replaced; slot may be size() to append a room.
+    AvailabilityVersion with(int slot, boolean available, OccupancyBitmap occupancy) {
+        int leafIndex = slot >>> LEAF_SHIFT;
+        RoomState[][] root = leafIndex < leaves.length ? leaves.clone() : Arrays.copyOf(leaves, leafIndex + 1);
+        RoomState[] leaf = root[leafIndex] == null ? new RoomState[LEAF_SIZE] : root[leafIndex].clone();
+        leaf[slot & (LEAF_SIZE - 1)] = new RoomState(available, occupancy);
+        root[leafIndex] = leaf;
+        return new AvailabilityVersion(root, Math.max(size, slot + 1), number + 1);
+    }
+
+    private RoomState state(int slot) {
+        return leaves[slot >>> LEAF_SHIFT][slot & (LEAF_SIZE - 1)];
+    }
+
+    public int size() { return size; }
+    public long getNumber() { return number; }
+}
\ No newline at end of file
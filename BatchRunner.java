@@ -0,0 +1,139 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Executes a stream of whitespace-separated commands against a Hotel and
+// reports throughput and latency percentiles per command:
+//
+//   room <Standard|Deluxe|Suite> <number> <price> <capacity>
+//   register <userId> <name> <email>
+//   search <checkIn> <checkOut> <capacity>
+//   book <userId> <roomNumber> <checkIn> <checkOut>
+//   cancel <userId> <reservationId | #n>   (#n = result of the n-th book line, from 0)
+//   view <userId>
+//
+// Blank lines and lines starting with '#' are ignored.
+public class BatchRunner {
+    private final Hotel hotel;
+    private final PrintStream out;
+    private final Map<String, LatencyLog> latencies = new LinkedHashMap<>();
+    private final List<String> booked = new ArrayList<>();
+    private long failures;
+    private long errors;
+
+    public BatchRunner(Hotel hotel, PrintStream out) {
+        this.hotel = hotel;
+        this.out = out;
+    }
+
+    public void run(Reader input) throws IOException {
+        BufferedReader reader = new BufferedReader(input, 1 << 16);
+        long started = System.nanoTime();
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            String[] args = line.split("\\s+");
+            long begin = System.nanoTime();
+            try {
+                if (!execute(args)) {
+                    failures++;
+                }
+            } catch (RuntimeException e) {
+                errors++;
+                out.println("Line " + lineNumber + ": " + e.getMessage());
+                continue;
+            }
+            latencies.computeIfAbsent(args[0], c -> new LatencyLog()).record(System.nanoTime() - begin);
+        }
+        printSummary(System.nanoTime() - started);
+    }
+
+    private boolean execute(String[] args) {
+        switch (args[0]) {
+            case "room":
+                return hotel.addRoom(BinarySnapshot.newRoom(args[1], args[2],
+                        Double.parseDouble(args[3]), Integer.parseInt(args[4])));
+            case "register":
+                hotel.registerUser(args[1], args[2], args[3]);
+                return true;
+            case "search":
+                return !hotel.searchAvailableRooms(LocalDate.parse(args[1]), LocalDate.parse(args[2]),
+                        Integer.parseInt(args[3])).isEmpty();
+            case "book":
+                // Every book line takes its #n slot up front, so one that fails
+                // or throws never shifts later cancels onto the wrong stay
+                int slot = booked.size();
+                booked.add(null);
+                User user = hotel.getUser(args[1]);
+                if (user == null) {
+                    user = hotel.registerUser(args[1], "Guest User", args[1] + "@example.com");
+                }
+                Reservation res = hotel.makeReservation(user, args[2],
+                        LocalDate.parse(args[3]), LocalDate.parse(args[4]));
+                if (res == null) return false;
+                booked.set(slot, res.getReservationId());
+                return true;
+            case "cancel":
+                String reservationId = args[2];
+                if (reservationId.startsWith("#")) {
+                    reservationId = booked.get(Integer.parseInt(reservationId.substring(1)));
+                }
+                return reservationId != null && hotel.cancelReservation(args[1], reservationId);
+            case "view":
+                return !hotel.getUserReservations(args[1]).isEmpty();
+            default:
+                throw new IllegalArgumentException("Unknown command: " + args[0]);
+        }
+    }
+
+    private void printSummary(long elapsedNanos) {
+        long total = 0;
+        for (LatencyLog log : latencies.values()) {
+            total += log.count;
+        }
+        double seconds = elapsedNanos / 1e9;
+        out.printf("%n%d commands in %.2f s (%.0f ops/s), %d unsuccessful, %d errors%n",
+                total, seconds, total / seconds, failures, errors);
+        out.printf("%-10s %10s %10s %10s %10s %10s %10s%n",
+                "command", "count", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us");
+        for (Map.Entry<String, LatencyLog> entry : latencies.entrySet()) {
+            LatencyLog log = entry.getValue();
+            log.sort();
+            out.printf("%-10s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n", entry.getKey(), log.count,
+                    log.percentile(50) / 1e3, log.percentile(90) / 1e3, log.percentile(99) / 1e3,
+                    log.percentile(99.9) / 1e3, log.percentile(100) / 1e3);
+        }
+    }
+
+    private static class LatencyLog {
+        private long[] nanos = new long[1024];
+        private int count;
+
+        void record(long value) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = value;
+        }
+
+        void sort() {
+            Arrays.sort(nanos, 0, count);
+        }
+
+        long percentile(double p) {
+            int index = (int) Math.ceil(p / 100 * count) - 1;
+            return nanos[Math.max(0, Math.min(count - 1, index))];
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,290 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Versioned binary snapshot of a HotelData graph.
+//
+// Layout (big-endian):
+//   header      magic, version, journal sequence, record counts, string table offset
+//   rooms       fixed-width: type, number, price, capacity, available
+//   users       fixed-width: id, name, email, registered
+//   reservations fixed-width: id, user, room, check-in day, check-out day, flags, cost
+//   rates       per room type: type, first day, nights, then cents per night (-1 for base price)
+//   strings     count, count+1 long offsets followed by UTF-8 bytes
+// String fields are indexes into the string table; user and room fields are
+// record indexes. All file positions are longs, and the file is read back
+// through MappedByteBuffers of at most MAP_CHUNK bytes each, so a snapshot
+// may pass 2 GB.
+public class BinarySnapshot {
+    private static final int MAGIC = 0x48544C53; // "HTLS"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 2 + 2 + 8 + 4 * 4 + 8;
+    private static final int ROOM_SIZE = 4 + 4 + 8 + 4 + 1;
+    private static final int USER_SIZE = 4 + 4 + 4 + 1;
+    private static final int RESERVATION_SIZE = 4 + 4 + 4 + 4 + 4 + 1 + 8;
+    private static final int RATES_HEADER_SIZE = 4 + 8 + 4;
+
+    // Each mapping reaches MAP_OVERLAP bytes into the next chunk, so a field
+    // starting in a chunk is read whole from that chunk's mapping
+    private static final long MAP_CHUNK = 1L << 30;
+    private static final int MAP_OVERLAP = 8;
+
+    private static final int CONFIRMED = 1;
+    private static final int CANCELLED = 2;
+
+    public static void write(HotelData data, Path file) throws IOException {
+        List<Room> rooms = data.getRooms();
+        List<Reservation> reservations = data.getReservations();
+
+        // Reservations may still point at a User that has since been re-registered,
+        // so the user table holds every referenced user, not only the map values.
+        Map<User, Integer> userIndex = new IdentityHashMap<>();
+        List<User> users = new ArrayList<>();
+        for (User user : data.getUsers().values()) {
+            userIndex.put(user, users.size());
+            users.add(user);
+        }
+        for (Reservation res : reservations) {
+            if (!userIndex.containsKey(res.getUser())) {
+                userIndex.put(res.getUser(), users.size());
+                users.add(res.getUser());
+            }
+        }
+        Map<Room, Integer> roomIndex = new IdentityHashMap<>();
+        for (Room room : rooms) {
+            roomIndex.put(room, roomIndex.size());
+        }
+
+        RateCalendar rates = data.getRates();
+        List<String> rateTypes = new ArrayList<>(rates.roomTypes());
+        List<long[]> nightlyCents = new ArrayList<>(rateTypes.size());
+        long ratesSize = 0;
+        for (String type : rateTypes) {
+            nightlyCents.add(rates.nightlyCents(type));
+            ratesSize += RATES_HEADER_SIZE + 8L * nightlyCents.get(nightlyCents.size() - 1).length;
+        }
+
+        StringTable strings = new StringTable();
+        long stringTableOffset = HEADER_SIZE + (long) rooms.size() * ROOM_SIZE
+                + (long) users.size() * USER_SIZE + (long) reservations.size() * RESERVATION_SIZE + ratesSize;
+
+        try (FileOutputStream fos = new FileOutputStream(file.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+            // Strings are interned while the records are written and emitted last
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(0);
+            out.writeLong(data.getJournalSequence());
+            out.writeInt(rooms.size());
+            out.writeInt(users.size());
+            out.writeInt(reservations.size());
+            out.writeInt(rateTypes.size());
+            out.writeLong(stringTableOffset);
+
+            for (Room room : rooms) {
+                out.writeInt(strings.intern(room.getRoomType()));
+                out.writeInt(strings.intern(room.getRoomNumber()));
+                out.writeDouble(room.getPrice());
+                out.writeInt(room.getCapacity());
+                out.writeByte(room.isAvailable() ? 1 : 0);
+            }
+            for (User user : users) {
+                out.writeInt(strings.intern(user.getUserId()));
+                out.writeInt(strings.intern(user.getName()));
+                out.writeInt(strings.intern(user.getEmail()));
+                out.writeByte(data.getUsers().get(user.getUserId()) == user ? 1 : 0);
+            }
+            for (Reservation res : reservations) {
+                out.writeInt(strings.intern(res.getReservationId()));
+                out.writeInt(userIndex.get(res.getUser()));
+                out.writeInt(roomIndex.get(res.getRoom()));
+                out.writeInt((int) res.getCheckIn().toEpochDay());
+                out.writeInt((int) res.getCheckOut().toEpochDay());
+                out.writeByte((res.isConfirmed() ? CONFIRMED : 0) | (res.isCancelled() ? CANCELLED : 0));
+                out.writeDouble(res.getTotalCost());
+            }
+            for (int i = 0; i < rateTypes.size(); i++) {
+                out.writeInt(strings.intern(rateTypes.get(i)));
+                out.writeLong(rates.firstDay(rateTypes.get(i)));
+                out.writeInt(nightlyCents.get(i).length);
+                for (long cents : nightlyCents.get(i)) {
+                    out.writeLong(cents);
+                }
+            }
+            strings.writeTo(out);
+            out.flush();
+            fos.getFD().sync();
+        }
+    }
+
+    public static HotelData read(Path file) throws IOException {
+        MappedFile buf;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buf = new MappedFile(channel);
+        }
+        if (buf.getInt(0) != MAGIC) {
+            throw new IOException("Not a hotel snapshot: " + file);
+        }
+        if (buf.getShort(4) != VERSION) {
+            throw new IOException("Unsupported snapshot version " + buf.getShort(4));
+        }
+        long journalSequence = buf.getLong(8);
+        int roomCount = buf.getInt(16);
+        int userCount = buf.getInt(20);
+        int reservationCount = buf.getInt(24);
+        int rateTypeCount = buf.getInt(28);
+        long stringTableOffset = buf.getLong(32);
+        String[] strings = readStrings(buf, stringTableOffset);
+
+        List<Room> rooms = new ArrayList<>(roomCount);
+        long pos = HEADER_SIZE;
+        for (int i = 0; i < roomCount; i++, pos += ROOM_SIZE) {
+            Room room = newRoom(strings[buf.getInt(pos)], strings[buf.getInt(pos + 4)],
+                    buf.getDouble(pos + 8), buf.getInt(pos + 16));
+            room.setAvailable(buf.get(pos + 20) != 0);
+            rooms.add(room);
+        }
+
+        User[] users = new User[userCount];
+        Map<String, User> registered = new HashMap<>();
+        for (int i = 0; i < userCount; i++, pos += USER_SIZE) {
+            users[i] = new User(strings[buf.getInt(pos)], strings[buf.getInt(pos + 4)],
+                    strings[buf.getInt(pos + 8)]);
+            if (buf.get(pos + 12) != 0) {
+                registered.put(users[i].getUserId(), users[i]);
+            }
+        }
+
+        List<Reservation> reservations = new ArrayList<>(reservationCount);
+        for (int i = 0; i < reservationCount; i++, pos += RESERVATION_SIZE) {
+            User user = users[buf.getInt(pos + 4)];
+            int flags = buf.get(pos + 20);
+            Reservation res = Reservation.restore(strings[buf.getInt(pos)], user,
+                    rooms.get(buf.getInt(pos + 8)),
+                    LocalDate.ofEpochDay(buf.getInt(pos + 12)), LocalDate.ofEpochDay(buf.getInt(pos + 16)),
+                    (flags & CONFIRMED) != 0, (flags & CANCELLED) != 0, buf.getDouble(pos + 21));
+            reservations.add(res);
+            user.addReservation(res);
+        }
+
+        RateCalendar rates = new RateCalendar();
+        for (int i = 0; i < rateTypeCount; i++) {
+            String type = strings[buf.getInt(pos)];
+            long firstDay = buf.getLong(pos + 4);
+            long[] cents = new long[buf.getInt(pos + 12)];
+            pos += RATES_HEADER_SIZE;
+            for (int night = 0; night < cents.length; night++, pos += 8) {
+                cents[night] = buf.getLong(pos);
+            }
+            rates.restore(type, firstDay, cents);
+        }
+
+        HotelData data = new HotelData(rooms, reservations, registered);
+        data.setJournalSequence(journalSequence);
+        data.setRates(rates);
+        return data;
+    }
+
+    static Room newRoom(String type, String number, double price, int capacity) {
+        switch (type) {
+            case "Standard": return new StandardRoom(number, price, capacity);
+            case "Deluxe": return new DeluxeRoom(number, price, capacity);
+            case "Suite": return new Suite(number, price, capacity);
+            default: throw new IllegalArgumentException("Unknown room type: " + type);
+        }
+    }
+
+    private static String[] readStrings(MappedFile buf, long offset) {
+        int count = buf.getInt(offset);
+        long offsets = offset + 4;
+        long bytes = offsets + (count + 1L) * 8;
+        String[] strings = new String[count];
+        byte[] scratch = new byte[256];
+        for (int i = 0; i < count; i++) {
+            long start = buf.getLong(offsets + i * 8L);
+            int length = (int) (buf.getLong(offsets + (i + 1L) * 8) - start);
+            if (length > scratch.length) {
+                scratch = new byte[length];
+            }
+            buf.get(bytes + start, scratch, 0, length);
+            strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    private static class StringTable {
+        private final Map<String, Integer> index = new HashMap<>();
+        private final List<byte[]> values = new ArrayList<>();
+
+        int intern(String value) {
+            return index.computeIfAbsent(value, v -> {
+                values.add(v.getBytes(StandardCharsets.UTF_8));
+                return values.size() - 1;
+            });
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(values.size());
+            long offset = 0;
+            out.writeLong(offset);
+            for (byte[] value : values) {
+                offset += value.length;
+                out.writeLong(offset);
+            }
+            for (byte[] value : values) {
+                out.write(value);
+            }
+        }
+    }
+
+    // A read-only file mapped in MAP_CHUNK pieces and addressed by long position
+    private static class MappedFile {
+        private final MappedByteBuffer[] chunks;
+
+        MappedFile(FileChannel channel) throws IOException {
+            long size = channel.size();
+            chunks = new MappedByteBuffer[(int) ((size + MAP_CHUNK - 1) / MAP_CHUNK)];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = i * MAP_CHUNK;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(MAP_CHUNK + MAP_OVERLAP, size - start));
+            }
+        }
+
+        byte get(long pos) { return chunk(pos).get(offset(pos)); }
+        short getShort(long pos) { return chunk(pos).getShort(offset(pos)); }
+        int getInt(long pos) { return chunk(pos).getInt(offset(pos)); }
+        long getLong(long pos) { return chunk(pos).getLong(offset(pos)); }
+        double getDouble(long pos) { return chunk(pos).getDouble(offset(pos)); }
+
+        void get(long pos, byte[] dst, int off, int length) {
+            while (length > 0) {
+                int n = (int) Math.min(length, MAP_CHUNK - offset(pos));
+                chunk(pos).get(offset(pos), dst, off, n);
+                pos += n;
+                off += n;
+                length -= n;
+            }
+        }
+
+        private MappedByteBuffer chunk(long pos) {
+            return chunks[(int) (pos / MAP_CHUNK)];
+        }
+
+        private static int offset(long pos) {
+            return (int) (pos % MAP_CHUNK);
+        }
+    }
+}
\ No newline at end of file
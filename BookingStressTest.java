@@ -0,0 +1,139 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Hammers one Hotel from many threads with overlapping bookings and
+// cancellations, then verifies that no room ended up double-booked. A second
+// phase races every thread for the same fresh room on overlapping dates, one
+// round per room, and checks that each round booked the room at most once
+// and that most rounds booked it at all.
+//   java BookingStressTest [threads] [operationsPerThread] [paymentLatencyMs] [paymentFailureRate]
+public class BookingStressTest {
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        if (args.length > 2) {
+            double failureRate = args.length > 3 ? Double.parseDouble(args[3]) : 0;
+            PaymentProcessor.setGateway(new SimulatedPaymentGateway(Long.parseLong(args[2]), failureRate));
+        }
+
+        Path dir = Files.createTempDirectory("hotel-stress");
+        Hotel hotel = new Hotel("Stress", new StorageManager(dir, FsyncPolicy.OS_MANAGED, 0));
+        List<Room> rooms = hotel.getRooms();
+        LocalDate start = LocalDate.of(2030, 1, 1);
+
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger cancelled = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            String userId = "stress-" + t;
+            pool.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                User user = hotel.registerUser(userId, "Stress Guest", userId + "@example.com");
+                List<Reservation> mine = new ArrayList<>();
+                for (int i = 0; i < operations; i++) {
+                    if (!mine.isEmpty() && random.nextInt(4) == 0) {
+                        Reservation res = mine.remove(random.nextInt(mine.size()));
+                        if (hotel.cancelReservation(userId, res.getReservationId())) {
+                            cancelled.incrementAndGet();
+                        }
+                        continue;
+                    }
+                    Room room = rooms.get(random.nextInt(rooms.size()));
+                    LocalDate checkIn = start.plusDays(random.nextInt(30));
+                    LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(4));
+                    Reservation res = hotel.makeReservation(user, room.getRoomNumber(), checkIn, checkOut);
+                    if (res != null) {
+                        mine.add(res);
+                        booked.incrementAndGet();
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.MINUTES);
+
+        // A booking marks its room unavailable on every date, so the mix above
+        // books few rooms. Each race room starts free and every thread asks
+        // for dates sharing its third night.
+        int rounds = Math.max(100, operations / 10);
+        for (int r = 0; r < rounds; r++) {
+            hotel.addRoom(new StandardRoom("race-" + r, 100, 2));
+        }
+        AtomicInteger raceWins = new AtomicInteger();
+        CyclicBarrier startRound = new CyclicBarrier(threads);
+        ExecutorService racers = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            User user = hotel.getUser("stress-" + t);
+            racers.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    for (int r = 0; r < rounds; r++) {
+                        startRound.await();
+                        LocalDate checkIn = start.plusDays(random.nextInt(3));
+                        LocalDate checkOut = start.plusDays(3 + random.nextInt(3));
+                        if (hotel.makeReservation(user, "race-" + r, checkIn, checkOut) != null) {
+                            raceWins.incrementAndGet();
+                        }
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        racers.shutdown();
+        racers.awaitTermination(10, TimeUnit.MINUTES);
+
+        Map<Room, List<Reservation>> byRoom = new HashMap<>();
+        int active = 0;
+        for (int t = 0; t < threads; t++) {
+            for (Reservation res : hotel.getUserReservations("stress-" + t)) {
+                byRoom.computeIfAbsent(res.getRoom(), r -> new ArrayList<>()).add(res);
+                active++;
+            }
+        }
+        int overlaps = 0;
+        int roundsBooked = 0;
+        for (List<Reservation> stays : byRoom.values()) {
+            if (stays.get(0).getRoom().getRoomNumber().startsWith("race-")) {
+                roundsBooked++;
+            }
+            stays.sort(Comparator.comparing(Reservation::getCheckIn));
+            for (int i = 1; i < stays.size(); i++) {
+                if (!stays.get(i).getCheckIn().isAfter(stays.get(i - 1).getCheckOut())) {
+                    overlaps++;
+                    System.out.println("Double booking:\n" + stays.get(i - 1) + "\n" + stays.get(i));
+                }
+            }
+        }
+
+        System.out.printf("%d threads, %d bookings, %d cancellations, %d active, %d double bookings%n",
+                threads, booked.get(), cancelled.get(), active, overlaps);
+        System.out.printf("%d contended rounds, %d booked, %d bookings won%n", rounds, roundsBooked, raceWins.get());
+        deleteRecursively(dir);
+        if (overlaps > 0 || active != booked.get() - cancelled.get() + raceWins.get()
+                || raceWins.get() != roundsBooked || roundsBooked < rounds / 2) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+        System.out.println("PASSED");
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (var paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
\ No newline at end of file
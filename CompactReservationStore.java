@@ -0,0 +1,94 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reservations stored column-wise in primitive arrays: one slot per booking
+// holds its numeric id, room and user table indexes, check-in/check-out epoch
+// days, a status byte and the cost in cents. About 29 bytes per booking versus
+// several objects per booking in the Reservation graph. This is the batch
+// format ReservationArchive writes its blocks in; the live book keeps
+// Reservation objects, and stays only reach this form when they are archived.
+public class CompactReservationStore {
+    public static final byte PENDING = 0;
+    public static final byte CONFIRMED = 1;
+    public static final byte CANCELLED = 2;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] roomIndexes = new int[INITIAL_CAPACITY];
+    private int[] userIndexes = new int[INITIAL_CAPACITY];
+    private int[] checkInDays = new int[INITIAL_CAPACITY];
+    private int[] checkOutDays = new int[INITIAL_CAPACITY];
+    private byte[] statuses = new byte[INITIAL_CAPACITY];
+    private int[] costCents = new int[INITIAL_CAPACITY];
+    private int size;
+
+    private final List<Room> rooms = new ArrayList<>();
+    private final Map<Room, Integer> roomTable = new IdentityHashMap<>();
+    private final List<User> users = new ArrayList<>();
+    private final Map<User, Integer> userTable = new IdentityHashMap<>();
+
+    public int add(Reservation res) {
+        byte status = res.isCancelled() ? CANCELLED : res.isConfirmed() ? CONFIRMED : PENDING;
+        return add(ReservationIdGenerator.parse(res.getReservationId()), intern(res.getRoom()), intern(res.getUser()),
+                (int) res.getCheckIn().toEpochDay(), (int) res.getCheckOut().toEpochDay(),
+                status, (int) Math.round(res.getTotalCost() * 100));
+    }
+
+    public int add(long id, int roomIndex, int userIndex, int checkInDay, int checkOutDay,
+                   byte status, int cents) {
+        if (size == ids.length) {
+            grow();
+        }
+        int slot = size++;
+        ids[slot] = id;
+        roomIndexes[slot] = roomIndex;
+        userIndexes[slot] = userIndex;
+        checkInDays[slot] = checkInDay;
+        checkOutDays[slot] = checkOutDay;
+        statuses[slot] = status;
+        costCents[slot] = cents;
+        return slot;
+    }
+
+    public int intern(Room room) {
+        return roomTable.computeIfAbsent(room, r -> {
+            rooms.add(r);
+            return rooms.size() - 1;
+        });
+    }
+
+    public int intern(User user) {
+        return userTable.computeIfAbsent(user, u -> {
+            users.add(u);
+            return users.size() - 1;
+        });
+    }
+
+    public int size() { return size; }
+    public int roomCount() { return rooms.size(); }
+    public int userCount() { return users.size(); }
+    public long getId(int slot) { return ids[slot]; }
+    public int getRoomIndex(int slot) { return roomIndexes[slot]; }
+    public int getUserIndex(int slot) { return userIndexes[slot]; }
+    public int getCheckInDay(int slot) { return checkInDays[slot]; }
+    public int getCheckOutDay(int slot) { return checkOutDays[slot]; }
+    public byte getStatus(int slot) { return statuses[slot]; }
+    public int getCostCents(int slot) { return costCents[slot]; }
+    public Room getRoom(int roomIndex) { return rooms.get(roomIndex); }
+    public User getUser(int userIndex) { return users.get(userIndex); }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        roomIndexes = Arrays.copyOf(roomIndexes, capacity);
+        userIndexes = Arrays.copyOf(userIndexes, capacity);
+        checkInDays = Arrays.copyOf(checkInDays, capacity);
+        checkOutDays = Arrays.copyOf(checkOutDays, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        costCents = Arrays.copyOf(costCents, capacity);
+    }
+}
\ No newline at end of file
@@ -1,4 +1,6 @@
 public class DeluxeRoom extends Room {
+    private static final long serialVersionUID = 9053129451615314968L;
+
     public DeluxeRoom(String roomNumber, double price, int capacity) {
         super(roomNumber, price, capacity);
     }
@@ -0,0 +1,6 @@
+// When the journal writer forces appended entries to stable storage.
+public enum FsyncPolicy {
+    EVERY_COMMIT, // fsync each batch before completing its callers
+    INTERVAL,     // fsync at most once per configured interval
+    OS_MANAGED    // leave write-back to the operating system
+}
\ No newline at end of file
@@ -0,0 +1,148 @@
+import java.io.DataOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Append-only log written by a single background thread. Callers enqueue
+// frames and wait on the returned future; the writer drains whatever has
+// queued up, writes it as one batch and syncs according to the FsyncPolicy.
+// Futures complete on the writer thread, so callbacks chained on them must not
+// wait for the log themselves.
+public class GroupCommitLog {
+    private static final int MAX_BATCH = 1024;
+
+    private final Path file;
+    private final FsyncPolicy policy;
+    private final long fsyncIntervalMillis;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Object fileLock = new Object();
+    private Thread writer;
+    private FileOutputStream fileOut;
+    private DataOutputStream out;
+    private boolean dirty;
+    private long lastSync;
+
+    private static class Entry {
+        final byte[] frame;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Entry(byte[] frame) {
+            this.frame = frame;
+        }
+    }
+
+    public GroupCommitLog(Path file, FsyncPolicy policy, long fsyncIntervalMillis) {
+        this.file = file;
+        this.policy = policy;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+    }
+
+    public CompletableFuture<Void> submit(byte[] frame) {
+        Entry entry = new Entry(frame);
+        startWriter();
+        queue.add(entry);
+        return entry.done;
+    }
+
+    // Waits until everything submitted so far has been written.
+    public void awaitFlushed() {
+        submit(new byte[0]).join();
+    }
+
+    // Closes the log file and moves it to target, so later entries start a
+    // fresh file; callers must have awaited pending writes. Refuses to
+    // replace an existing target, which may hold entries nothing else covers.
+    public void rotate(Path target) throws IOException {
+        synchronized (fileLock) {
+            if (Files.exists(target)) {
+                throw new FileAlreadyExistsException(target.toString());
+            }
+            close();
+            if (Files.exists(file)) {
+                Files.move(file, target);
+            }
+        }
+    }
+
+    private synchronized void startWriter() {
+        if (writer == null) {
+            writer = new Thread(this::run, "journal-writer-" + file.getFileName());
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>();
+        while (true) {
+            try {
+                Entry first = dirty && policy == FsyncPolicy.INTERVAL
+                        ? queue.poll(fsyncIntervalMillis, TimeUnit.MILLISECONDS)
+                        : queue.take();
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                }
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                for (Entry entry : batch) {
+                    entry.done.completeExceptionally(e);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<Entry> batch) throws IOException {
+        synchronized (fileLock) {
+            if (!batch.isEmpty()) {
+                DataOutputStream stream = open();
+                for (Entry entry : batch) {
+                    stream.write(entry.frame);
+                }
+                stream.flush();
+                dirty = true;
+            }
+            long now = System.currentTimeMillis();
+            if (dirty && (policy == FsyncPolicy.EVERY_COMMIT
+                    || (policy == FsyncPolicy.INTERVAL && now - lastSync >= fsyncIntervalMillis))) {
+                fileOut.getChannel().force(false);
+                dirty = false;
+                lastSync = now;
+            } else if (policy == FsyncPolicy.OS_MANAGED) {
+                dirty = false;
+            }
+        }
+        for (Entry entry : batch) {
+            entry.done.complete(null);
+        }
+    }
+
+    private DataOutputStream open() throws IOException {
+        if (out == null) {
+            fileOut = new FileOutputStream(file.toFile(), true);
+            out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16));
+        }
+        return out;
+    }
+
+    private void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+            fileOut = null;
+            dirty = false;
+        }
+    }
+}
\ No newline at end of file
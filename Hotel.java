@@ -1,26 +1,91 @@
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+// Safe for concurrent use. Bookings and cancellations serialize per room on a
+// striped lock, searches read one immutable availability version without
+// locking, and a checkpoint briefly excludes mutations while it captures the
+// state to save. While a payment is in flight the room is held in the
+// availability indexes but no lock is kept. Every checkpoint first moves
+// cancelled and checked-out stays to the on-disk archive, so the working set
+// holds only the forward book.
+// Guests are paged in from the UserStore on first access and evicted once idle.
 public class Hotel {
+    private static final int ROOM_LOCK_STRIPES = 64;
+    private static final long HOLD_TIMEOUT_SECONDS = 30;
+    private static final int AVAILABILITY_CACHE_SIZE = 1024;
+    private static final int GROUP_BOOKING_ATTEMPTS = 3;
+
     private String name;
     private List<Room> rooms;
+    private RoomDirectory directory;
     private List<Reservation> reservations;
-    private Map<String, User> users; // userID -> User
+    private final UserStore users;
+    private Map<String, Reservation> reservationsById;
+    private OccupancyCalendar calendar;
+    private final AvailabilityCache availabilityCache = new AvailabilityCache(AVAILABILITY_CACHE_SIZE);
+    private RateCalendar rates = new RateCalendar();
+    private final RoomInventory inventory = new RoomInventory();
+    private StorageManager storage;
+    private final StripedLocks roomLocks = new StripedLocks(ROOM_LOCK_STRIPES);
+    private final ReservationIdGenerator idGenerator = new ReservationIdGenerator();
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    private final Lock checkpointRunning = new ReentrantLock();
 
     public Hotel(String name) {
+        this(name, new StorageManager());
+    }
+
+    public Hotel(String name, StorageManager storage) {
+        this(null, name, storage);
+    }
+
+    // A shard of a HotelService; propertyId tells its MBeans apart from other shards'.
+    public Hotel(String propertyId, String name, StorageManager storage) {
         this.name = name;
-        this.rooms = new ArrayList<>();
-        this.reservations = new ArrayList<>();
-        this.users = new HashMap<>();
+        this.storage = storage;
+        this.rooms = new CopyOnWriteArrayList<>();
+        this.directory = new RoomDirectory();
+        this.reservations = Collections.synchronizedList(new ArrayList<>());
+        this.users = storage.getUsers();
+        this.reservationsById = new ConcurrentHashMap<>();
+        this.calendar = new OccupancyCalendar(availabilityCache);
         initializeData();
+        Metrics.register("AvailabilityCache", propertyId, name, availabilityCache);
+        Metrics.register("UserStore", propertyId, name, users);
     }
 
     private void initializeData() {
-        HotelData data = StorageManager.loadData();
+        HotelData data = storage.loadData();
         if (data != null) {
-            this.rooms = data.getRooms();
-            this.reservations = data.getReservations();
-            this.users = data.getUsers();
+            this.rooms = new CopyOnWriteArrayList<>(data.getRooms());
+            for (Room room : rooms) {
+                directory.add(room);
+                calendar.addRoom(room);
+                inventory.addRoom(room.getRoomType());
+            }
+            this.reservations = Collections.synchronizedList(data.getReservations());
+            this.rates = data.getRates();
+            rebuildIndexes();
+            // Archived stays left the book, but their IDs must not be issued again
+            idGenerator.observe(storage.getArchive().maxId());
+            calendar.rebuild(reservations);
+            for (Room room : rooms) {
+                syncAvailableFlag(room);
+            }
+            LocalDate today = LocalDate.now();
+            if (users.hasPending() || reservations.stream().anyMatch(res -> isExpired(res, today))) {
+                saveData();
+            }
         } else {
             // Initialize with sample data if no saved data exists
             addRoom(new StandardRoom("101", 99.99, 2));
@@ -28,97 +93,587 @@ public class Hotel {
             addRoom(new DeluxeRoom("201", 149.99, 3));
             addRoom(new DeluxeRoom("202", 149.99, 3));
             addRoom(new Suite("301", 249.99, 4));
+            saveData();
         }
     }
 
-    public void addRoom(Room room) {
-        rooms.add(room);
+    private void rebuildIndexes() {
+        reservationsById.clear();
+        for (Reservation res : reservations) {
+            reservationsById.put(res.getReservationId(), res);
+            idGenerator.observe(res.getReservationId());
+            if (!res.isCancelled()) {
+                inventory.tryBook(res);
+            }
+        }
+    }
+
+    // Returns false and adds nothing if a room with the same number exists.
+    public boolean addRoom(Room room) {
+        CompletableFuture<Void> written;
+        checkpointLock.readLock().lock();
+        try {
+            if (!directory.add(room)) {
+                return false;
+            }
+            rooms.add(room);
+            calendar.addRoom(room); // retires searches cached before it could be found
+            inventory.addRoom(room.getRoomType());
+            syncAvailableFlag(room);
+            written = storage.append(JournalRecord.roomAdded(room));
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        durable(written).join();
+        return true;
     }
 
     public User registerUser(String userId, String name, String email) {
-        User user = new User(userId, name, email);
-        users.put(userId, user);
-        saveData();
+        return register(new User(userId, name, email), true);
+    }
+
+    // Like registerUser, but returns null rather than replace a guest already
+    // registered under userId, whose stays would no longer be listed.
+    public User registerNewUser(String userId, String name, String email) {
+        return register(new User(userId, name, email), false);
+    }
+
+    private User register(User user, boolean replace) {
+        long start = System.nanoTime();
+        CompletableFuture<Void> written;
+        checkpointLock.readLock().lock();
+        try {
+            if (replace) {
+                users.register(user);
+            } else if (!users.registerIfAbsent(user)) {
+                Metrics.REGISTER.record(start);
+                return null;
+            }
+            written = storage.append(JournalRecord.userRegistered(user));
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        durable(written).join();
+        Metrics.REGISTER.record(start);
         return user;
     }
 
     public Reservation makeReservation(User user, String roomNumber, 
                                     LocalDate checkIn, LocalDate checkOut) {
-        Room room = findAvailableRoom(roomNumber, checkIn, checkOut);
-        if (room == null) {
-            return null;
+        return makeReservationAsync(user, roomNumber, checkIn, checkOut).join();
+    }
+
+    // Holds the room, charges the guest and completes with the confirmed
+    // reservation, or with null if the room was taken or payment failed.
+    public CompletableFuture<Reservation> makeReservationAsync(User user, String roomNumber,
+                                                               LocalDate checkIn, LocalDate checkOut) {
+        long start = System.nanoTime();
+        if (!isValidStay(checkIn, checkOut)) {
+            Metrics.BOOK.record(start);
+            return CompletableFuture.completedFuture(null);
+        }
+        Reservation hold;
+        Lock roomLock = roomLocks.lockFor(roomNumber);
+        roomLock.lock();
+        try {
+            // The availability check and the hold are atomic for this room
+            Room room = findAvailableRoom(roomNumber, checkIn, checkOut);
+            hold = room == null ? null : new Reservation(idGenerator.nextReservationId(), user, room,
+                    checkIn, checkOut, quote(room, checkIn, checkOut));
+            if (hold == null || !inventory.tryBook(hold)) {
+                Metrics.BOOK.record(start);
+                return CompletableFuture.completedFuture(null);
+            }
+            calendar.occupy(hold);
+        } finally {
+            roomLock.unlock();
         }
 
-        String reservationId = "RES-" + System.currentTimeMillis();
-        Reservation reservation = new Reservation(reservationId, user, room, checkIn, checkOut);
-        
-        if (PaymentProcessor.processPayment(reservation.getTotalCost())) {
-            reservation.confirmReservation();
-            reservations.add(reservation);
-            user.addReservation(reservation);
-            saveData();
-            return reservation;
+        long paymentStart = System.nanoTime();
+        return PaymentProcessor.processPaymentAsync(hold.getTotalCost(), HOLD_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .thenCompose(paid -> {
+                    Metrics.PAYMENT.record(paymentStart);
+                    if (!paid) Metrics.PAYMENT.recordError();
+                    return settleHold(hold, paid);
+                })
+                .whenComplete((res, e) -> {
+                    Metrics.BOOK.record(start);
+                    if (e != null) Metrics.BOOK.recordError();
+                });
+    }
+
+    private CompletableFuture<Reservation> settleHold(Reservation hold, boolean paid) {
+        Room room = hold.getRoom();
+        CompletableFuture<Void> written;
+        Lock roomLock = roomLocks.lockFor(room.getRoomNumber());
+        checkpointLock.readLock().lock();
+        roomLock.lock();
+        try {
+            if (!paid) {
+                calendar.release(hold);
+                inventory.release(hold);
+                return CompletableFuture.completedFuture(null);
+            }
+            hold.confirmReservation();
+            calendar.refresh(room);
+            syncAvailableFlag(room);
+            reservations.add(hold);
+            reservationsById.put(hold.getReservationId(), hold);
+            hold.getUser().addReservation(hold);
+            written = storage.append(JournalRecord.reservationConfirmed(hold));
+        } finally {
+            roomLock.unlock();
+            checkpointLock.readLock().unlock();
         }
-        return null;
+        return durable(written).thenApply(v -> hold);
     }
 
-    public boolean cancelReservation(String userId, String reservationId) {
-        User user = users.get(userId);
-        if (user == null) return false;
-
-        if (user.cancelReservation(reservationId)) {
-            for (Reservation res : reservations) {
-                if (res.getReservationId().equals(reservationId)) {
-                    res.cancelReservation();
-                    saveData();
-                    return true;
+    public List<Reservation> makeGroupReservation(User user, List<RoomRequest> requests,
+                                                  LocalDate checkIn, LocalDate checkOut) {
+        return makeGroupReservationAsync(user, requests, checkIn, checkOut).join();
+    }
+
+    // Holds a room for every request or for none of them, charges the group
+    // total once and confirms all stays with a single journal entry. Completes
+    // with null if any request cannot be met or the payment fails.
+    public CompletableFuture<List<Reservation>> makeGroupReservationAsync(User user, List<RoomRequest> requests,
+                                                                          LocalDate checkIn, LocalDate checkOut) {
+        long start = System.nanoTime();
+        if (!isValidStay(checkIn, checkOut)) {
+            Metrics.GROUP_BOOK.record(start);
+            return CompletableFuture.completedFuture(null);
+        }
+        if (requests.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        List<Reservation> held = null;
+        for (int attempt = 0; attempt < GROUP_BOOKING_ATTEMPTS && held == null; attempt++) {
+            List<Room> chosen = chooseRooms(requests, checkIn, checkOut);
+            if (chosen == null) break;
+            held = holdRooms(user, chosen, checkIn, checkOut); // null if a room was taken meanwhile
+        }
+        if (held == null) {
+            Metrics.GROUP_BOOK.record(start);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<Reservation> holds = held;
+        double total = 0;
+        for (Reservation hold : holds) {
+            total += hold.getTotalCost();
+        }
+        long paymentStart = System.nanoTime();
+        return PaymentProcessor.processPaymentAsync(total, HOLD_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .thenCompose(paid -> {
+                    Metrics.PAYMENT.record(paymentStart);
+                    if (!paid) Metrics.PAYMENT.recordError();
+                    return settleGroup(holds, paid);
+                })
+                .whenComplete((res, e) -> {
+                    Metrics.GROUP_BOOK.record(start);
+                    if (e != null) Metrics.GROUP_BOOK.recordError();
+                });
+    }
+
+    // Picks a distinct free room per request from one scan of each requested
+    // type, without locking; holdRooms re-checks the picks under the locks.
+    private List<Room> chooseRooms(List<RoomRequest> requests, LocalDate checkIn, LocalDate checkOut) {
+        Room[] chosen = new Room[requests.size()];
+        Set<Room> taken = Collections.newSetFromMap(new IdentityHashMap<>());
+        Map<String, List<Integer>> byType = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            RoomRequest request = requests.get(i);
+            if (request.isSpecificRoom()) {
+                Room room = findAvailableRoom(request.getRoomNumber(), checkIn, checkOut);
+                if (room == null || !taken.add(room)) return null;
+                chosen[i] = room;
+            } else {
+                byType.computeIfAbsent(request.getRoomType(), t -> new ArrayList<>()).add(i);
+            }
+        }
+
+        for (Map.Entry<String, List<Integer>> entry : byType.entrySet()) {
+            // Free rooms come back smallest first; serving the smallest parties
+            // first with the smallest room that fits leaves big rooms for big parties
+            List<Room> free = calendar.freeRooms(directory.ofType(entry.getKey(), 0), checkIn, checkOut);
+            List<Integer> indexes = entry.getValue();
+            indexes.sort(Comparator.comparingInt(i -> requests.get(i).getMinCapacity()));
+            int next = 0;
+            for (int i : indexes) {
+                int minCapacity = requests.get(i).getMinCapacity();
+                while (next < free.size()
+                        && (free.get(next).getCapacity() < minCapacity || taken.contains(free.get(next)))) {
+                    next++;
                 }
+                if (next == free.size()) return null;
+                chosen[i] = free.get(next++);
             }
         }
-        return false;
+        return Arrays.asList(chosen);
     }
 
-    public List<Room> searchAvailableRooms(LocalDate checkIn, LocalDate checkOut, int capacity) {
-        List<Room> availableRooms = new ArrayList<>();
-        for (Room room : rooms) {
-            if (room.getCapacity() >= capacity && isRoomAvailable(room, checkIn, checkOut)) {
-                availableRooms.add(room);
+    private List<Reservation> holdRooms(User user, List<Room> chosen, LocalDate checkIn, LocalDate checkOut) {
+        if (!isValidStay(checkIn, checkOut)) return null;
+        List<ReentrantLock> locks = lockRooms(chosen);
+        try {
+            for (Room room : chosen) {
+                if (!isRoomAvailable(room, checkIn, checkOut)) return null;
+            }
+            List<Reservation> holds = new ArrayList<>(chosen.size());
+            for (Room room : chosen) {
+                holds.add(new Reservation(idGenerator.nextReservationId(), user, room, checkIn, checkOut,
+                        quote(room, checkIn, checkOut)));
+            }
+            for (int i = 0; i < holds.size(); i++) {
+                if (!inventory.tryBook(holds.get(i))) {
+                    // A sell limit would be exceeded; undo the counts taken so far
+                    for (int j = 0; j < i; j++) {
+                        inventory.release(holds.get(j));
+                    }
+                    return null;
+                }
             }
+            for (Reservation hold : holds) {
+                calendar.occupy(hold);
+            }
+            return holds;
+        } finally {
+            unlockRooms(locks);
         }
-        return availableRooms;
     }
 
-    private Room findAvailableRoom(String roomNumber, LocalDate checkIn, LocalDate checkOut) {
-        for (Room room : rooms) {
-            if (room.getRoomNumber().equals(roomNumber) && isRoomAvailable(room, checkIn, checkOut)) {
-                return room;
+    private CompletableFuture<List<Reservation>> settleGroup(List<Reservation> holds, boolean paid) {
+        List<Room> groupRooms = new ArrayList<>(holds.size());
+        for (Reservation hold : holds) {
+            groupRooms.add(hold.getRoom());
+        }
+        CompletableFuture<Void> written;
+        checkpointLock.readLock().lock();
+        List<ReentrantLock> locks = lockRooms(groupRooms);
+        try {
+            for (Reservation hold : holds) {
+                if (paid) {
+                    hold.confirmReservation();
+                    calendar.refresh(hold.getRoom());
+                    syncAvailableFlag(hold.getRoom());
+                    reservations.add(hold);
+                    reservationsById.put(hold.getReservationId(), hold);
+                    hold.getUser().addReservation(hold);
+                } else {
+                    calendar.release(hold);
+                    inventory.release(hold);
+                }
+            }
+            if (!paid) {
+                return CompletableFuture.completedFuture(null);
             }
+            written = storage.append(JournalRecord.groupConfirmed(holds));
+        } finally {
+            unlockRooms(locks);
+            checkpointLock.readLock().unlock();
         }
-        return null;
+        return durable(written).thenApply(v -> holds);
     }
 
-    private boolean isRoomAvailable(Room room, LocalDate checkIn, LocalDate checkOut) {
-        if (!room.isAvailable()) return false;
+    // Locks the stripes of all rooms in stripe order
+    private List<ReentrantLock> lockRooms(List<Room> lockedRooms) {
+        List<String> roomNumbers = new ArrayList<>(lockedRooms.size());
+        for (Room room : lockedRooms) {
+            roomNumbers.add(room.getRoomNumber());
+        }
+        List<ReentrantLock> locks = roomLocks.locksFor(roomNumbers);
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        return locks;
+    }
 
-        for (Reservation res : reservations) {
-            if (res.getRoom().equals(room) && !res.isCancelled() &&
-                !(checkOut.isBefore(res.getCheckIn()) || checkIn.isAfter(res.getCheckOut()))) {
+    private static void unlockRooms(List<ReentrantLock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    public boolean cancelReservation(String userId, String reservationId) {
+        long start = System.nanoTime();
+        try {
+            return cancel(userId, reservationId);
+        } finally {
+            Metrics.CANCEL.record(start);
+        }
+    }
+
+    private boolean cancel(String userId, String reservationId) {
+        Reservation res = reservationsById.get(reservationId);
+        if (res == null || !res.getUser().getUserId().equals(userId)) return false;
+
+        CompletableFuture<Void> written;
+        Lock roomLock = roomLocks.lockFor(res.getRoom().getRoomNumber());
+        checkpointLock.readLock().lock();
+        roomLock.lock();
+        try {
+            if (!res.getUser().cancelReservation(reservationId)) {
                 return false;
             }
+            calendar.release(res);
+            inventory.release(res);
+            syncAvailableFlag(res.getRoom()); // cancelling also sets the room's available flag
+            written = storage.append(JournalRecord.reservationCancelled(res));
+        } finally {
+            roomLock.unlock();
+            checkpointLock.readLock().unlock();
         }
+        durable(written).join();
         return true;
     }
 
+    public Reservation getReservation(String reservationId) {
+        return reservationsById.get(reservationId);
+    }
+
+    public List<Room> searchAvailableRooms(LocalDate checkIn, LocalDate checkOut, int capacity) {
+        long start = System.nanoTime();
+        try {
+            if (!isValidStay(checkIn, checkOut)) {
+                return Collections.emptyList();
+            }
+            List<Room> cached = availabilityCache.get(checkIn, checkOut, capacity);
+            if (cached != null) {
+                return cached;
+            }
+            // One availability version answers the whole search
+            AvailabilityVersion version = calendar.current();
+            return availabilityCache.put(version, checkIn, checkOut, capacity,
+                    calendar.freeRooms(version, directory.withCapacity(capacity), checkIn, checkOut));
+        } finally {
+            Metrics.SEARCH.record(start);
+        }
+    }
+
+    // Rooms of a type still sellable on every night of the stay, from the
+    // per-type nightly counts rather than a scan of the rooms.
+    public int countAvailable(String roomType, LocalDate checkIn, LocalDate checkOut) {
+        if (!isValidStay(checkIn, checkOut)) return 0;
+        return inventory.countAvailable(roomType, checkIn, checkOut);
+    }
+
+    // Available rooms with each stay's total from the rate calendar
+    public List<RoomQuote> quoteAvailableRooms(LocalDate checkIn, LocalDate checkOut, int capacity) {
+        List<Room> available = searchAvailableRooms(checkIn, checkOut, capacity);
+        List<RoomQuote> quotes = new ArrayList<>(available.size());
+        for (Room room : available) {
+            quotes.add(new RoomQuote(room, quote(room, checkIn, checkOut)));
+        }
+        return quotes;
+    }
+
+    // Sets the nightly rate of a room type for from..to-1. Like every rate
+    // change it is journaled, so it survives a restart.
+    public void setRate(String roomType, LocalDate from, LocalDate to, double nightlyRate) {
+        changeRate(() -> rates.setRate(roomType, from, to, nightlyRate),
+                JournalRecord.rateSet(roomType, from, to, nightlyRate));
+    }
+
+    // Returns from..to-1 to the rooms' base prices.
+    public void clearRate(String roomType, LocalDate from, LocalDate to) {
+        changeRate(() -> rates.clearRate(roomType, from, to), JournalRecord.rateCleared(roomType, from, to));
+    }
+
+    // Rate changes are applied and journaled in the same order, so replay
+    // resolves overlapping ranges the same way.
+    private void changeRate(Runnable change, JournalRecord record) {
+        CompletableFuture<Void> written;
+        checkpointLock.readLock().lock();
+        try {
+            synchronized (rates) {
+                change.run();
+                written = storage.append(record);
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        durable(written).join();
+    }
+
+    // Passes a change to the room's available flag on to the inventory. Call
+    // with the room's lock held, once calendar and inventory count its stays alike.
+    private void syncAvailableFlag(Room room) {
+        inventory.setAvailable(room, room.isAvailable(), () -> calendar.occupiedDays(room));
+    }
+
+    // A stay must end after it starts; anything else matches no room and books nothing
+    private static boolean isValidStay(LocalDate checkIn, LocalDate checkOut) {
+        return checkOut.isAfter(checkIn);
+    }
+
+    private double quote(Room room, LocalDate checkIn, LocalDate checkOut) {
+        return rates.quote(room, checkIn, checkOut) / 100.0;
+    }
+
+    private Room findAvailableRoom(String roomNumber, LocalDate checkIn, LocalDate checkOut) {
+        Room room = directory.get(roomNumber);
+        return room != null && isRoomAvailable(room, checkIn, checkOut) ? room : null;
+    }
+
+    private boolean isRoomAvailable(Room room, LocalDate checkIn, LocalDate checkOut) {
+        return room.isAvailable() && calendar.isFree(room, checkIn, checkOut);
+    }
+
+    public User getUser(String userId) {
+        return users.get(userId);
+    }
+
     public List<Reservation> getUserReservations(String userId) {
         User user = users.get(userId);
         return user != null ? user.getReservations() : Collections.emptyList();
     }
 
+    // Pages through a guest's whole history by check-in date: the forward
+    // book merged with the stays already moved to the archive. Pass the
+    // previous page's cursor (or null) to continue.
+    public ReservationPage getUserReservations(String userId, ReservationStatus status,
+                                               LocalDate fromDate, int pageSize, String cursor) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        User user = users.get(userId);
+        if (user == null) {
+            return new ReservationPage(Collections.emptyList(), null);
+        }
+        // One stay past the page from each side tells whether another page follows
+        int wanted = pageSize == Integer.MAX_VALUE ? pageSize : pageSize + 1;
+        List<Reservation> live = user.getReservations(status, fromDate, wanted, cursor).getReservations();
+        // A stay still in the book may also have been archived already, e.g.
+        // while being archived or if it was cancelled after checking out; the
+        // book's copy is the current one
+        List<Reservation> archived = storage.getArchive().page(userId, StayKey.after(fromDate, cursor), wanted,
+                res -> status.matches(res) && user.getReservation(res.getReservationId()) == null,
+                directory::get, id -> user);
+
+        TreeMap<StayKey, Reservation> merged = new TreeMap<>();
+        for (Reservation res : archived) {
+            merged.put(new StayKey(res), res);
+        }
+        for (Reservation res : live) {
+            merged.put(new StayKey(res), res);
+        }
+        List<Reservation> page = new ArrayList<>(Math.min(pageSize, merged.size()));
+        StayKey last = null;
+        for (Map.Entry<StayKey, Reservation> entry : merged.entrySet()) {
+            if (page.size() == pageSize) break;
+            page.add(entry.getValue());
+            last = entry.getKey();
+        }
+        return new ReservationPage(page, merged.size() > pageSize ? last.toString() : null);
+    }
+
+    // Completes once the journal entry is written. This may run on the journal
+    // writer thread, which a checkpoint waits on, so checkpoints are handed off.
+    private CompletableFuture<Void> durable(CompletableFuture<Void> written) {
+        return written.handle((v, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                System.err.println("Error writing journal: " + cause.getMessage());
+            }
+            if (storage.isCheckpointDue()) {
+                CompletableFuture.runAsync(this::checkpointIfDue);
+            }
+            return null;
+        });
+    }
+
+    private void checkpointIfDue() {
+        checkpoint(false);
+    }
+
     private void saveData() {
-        StorageManager.saveData(rooms, reservations, users);
+        checkpoint(true);
+    }
+
+    // Mutations are held off only while the journal is rotated. Expired stays
+    // are archived before that and the snapshot is written after, both while
+    // bookings and cancellations carry on.
+    private void checkpoint(boolean force) {
+        checkpointRunning.lock(); // one checkpoint at a time
+        try {
+            if (!force && !storage.isCheckpointDue()) return;
+            archiveExpired(LocalDate.now());
+            StorageManager.Checkpoint captured;
+            checkpointLock.writeLock().lock();
+            try {
+                captured = storage.beginCheckpoint(rooms, reservations, rates);
+            } finally {
+                checkpointLock.writeLock().unlock();
+            }
+            storage.completeCheckpoint(captured);
+        } finally {
+            checkpointRunning.unlock();
+        }
+    }
+
+    // Moves cancelled and checked-out stays into the archive, then drops them
+    // from every in-memory index. A checked-out stay cancelled in between is
+    // kept until the next checkpoint archives it again; the later copy wins.
+    private void archiveExpired(LocalDate today) {
+        List<Reservation> cancelled = new ArrayList<>();
+        List<Reservation> checkedOut = new ArrayList<>();
+        CompactReservationStore batch = new CompactReservationStore();
+        for (Reservation res : reservations.toArray(new Reservation[0])) {
+            if (res.isCancelled()) {
+                cancelled.add(res);
+            } else if (isExpired(res, today)) {
+                checkedOut.add(res);
+            } else {
+                continue;
+            }
+            batch.add(res);
+        }
+        if (batch.size() == 0) return;
+        try {
+            storage.getArchive().append(batch);
+        } catch (IOException e) {
+            System.err.println("Error archiving reservations: " + e.getMessage());
+            return;
+        }
+
+        Set<Reservation> archived = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Reservation res : cancelled) {
+            archived.add(res);
+            reservationsById.remove(res.getReservationId());
+            res.getUser().removeReservation(res.getReservationId());
+        }
+        for (Reservation res : checkedOut) {
+            Lock roomLock = roomLocks.lockFor(res.getRoom().getRoomNumber());
+            roomLock.lock();
+            try {
+                if (res.isCancelled()) continue;
+                archived.add(res);
+                reservationsById.remove(res.getReservationId());
+                res.getUser().removeReservation(res.getReservationId());
+                calendar.release(res);
+                inventory.release(res);
+            } finally {
+                roomLock.unlock();
+            }
+        }
+        reservations.removeIf(archived::contains);
+    }
+
+    private static boolean isExpired(Reservation res, LocalDate today) {
+        return res.isCancelled() || (res.isConfirmed() && res.getCheckOut().isBefore(today));
+    }
+
+    // Archived stays of a user overlapping from..to; either bound may be null.
+    public List<Reservation> getArchivedReservations(String userId, LocalDate from, LocalDate to) {
+        return storage.getArchive().find(userId, from, to, directory::get, id -> {
+            User user = users.get(id);
+            return user != null ? user : new User(id, "", "");
+        });
     }
 
     // Getters
     public String getName() { return name; }
+    public AvailabilityCache getAvailabilityCache() { return availabilityCache; }
+    public RoomInventory getInventory() { return inventory; }
     public List<Room> getRooms() { return Collections.unmodifiableList(rooms); }
 }
\ No newline at end of file
@@ -1,9 +1,22 @@
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
 
 public class HotelApp {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            runBatch(args);
+            return;
+        }
+
+        startMetricsReporter();
         Hotel hotel = new Hotel("Grand Paradise");
         Scanner scanner = new Scanner(System.in);
 
@@ -41,6 +54,33 @@ public class HotelApp {
         }
     }
 
+    // HotelApp --batch <commandFile | -> [dataDirectory]
+    private static void runBatch(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: HotelApp --batch <commandFile | -> [dataDirectory]");
+            return;
+        }
+        StorageManager storage = args.length > 2
+                ? new StorageManager(Files.createDirectories(Paths.get(args[2])))
+                : new StorageManager();
+        // Skip the console payment simulation so output stays readable at volume
+        PaymentProcessor.setGateway(amount -> CompletableFuture.completedFuture(true));
+        startMetricsReporter();
+        Hotel hotel = new Hotel("Grand Paradise", storage);
+        try (Reader input = args[1].equals("-")
+                ? new InputStreamReader(System.in) : new FileReader(args[1])) {
+            new BatchRunner(hotel, System.out).run(input);
+        }
+    }
+
+    // -Dhotel.metrics.dumpSeconds=N prints operation metrics every N seconds
+    private static void startMetricsReporter() {
+        long interval = Long.getLong("hotel.metrics.dumpSeconds", 0);
+        if (interval > 0) {
+            Metrics.startReporter(interval, System.err);
+        }
+    }
+
     private static void searchRooms(Hotel hotel, Scanner scanner) {
         System.out.print("Enter check-in date (YYYY-MM-DD): ");
         LocalDate checkIn = LocalDate.parse(scanner.nextLine());
@@ -52,7 +92,7 @@ public class HotelApp {
         int capacity = scanner.nextInt();
         scanner.nextLine(); // Consume newline
 
-        List<Room> availableRooms = hotel.searchAvailableRooms(checkIn, checkOut, capacity);
+        List<RoomQuote> availableRooms = hotel.quoteAvailableRooms(checkIn, checkOut, capacity);
         
         System.out.println("\nAvailable Rooms:");
         if (availableRooms.isEmpty()) {
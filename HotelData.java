@@ -3,9 +3,14 @@ import java.util.List;
 import java.util.Map;
 
 public class HotelData implements Serializable {
+    // Matches the single-file edition so its hotel_data.ser still deserializes
+    private static final long serialVersionUID = -4955433137606871119L;
+
     private List<Room> rooms;
     private List<Reservation> reservations;
     private Map<String, User> users;
+    private long journalSequence; // last journal entry included in this snapshot
+    private transient RateCalendar rates; // not in the single-file edition's hotel_data.ser
 
     public HotelData(List<Room> rooms, List<Reservation> reservations, Map<String, User> users) {
         this.rooms = rooms;
@@ -17,4 +22,15 @@ public class HotelData implements Serializable {
     public List<Room> getRooms() { return rooms; }
     public List<Reservation> getReservations() { return reservations; }
     public Map<String, User> getUsers() { return users; }
+    public long getJournalSequence() { return journalSequence; }
+    public void setJournalSequence(long journalSequence) { this.journalSequence = journalSequence; }
+
+    public RateCalendar getRates() {
+        if (rates == null) {
+            rates = new RateCalendar();
+        }
+        return rates;
+    }
+
+    public void setRates(RateCalendar rates) { this.rates = rates; }
 }
\ No newline at end of file
@@ -0,0 +1,366 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+// JSON over HTTP front end for a Hotel:
+//   GET    /rooms/available?checkIn=&checkOut=&capacity=   (priced for the stay)
+//   POST   /users                      {"userId", "name", "email"}   (409 if the ID is taken)
+//   POST   /reservations               {"userId", "roomNumber", "checkIn", "checkOut"}
+//   DELETE /reservations/{id}?userId=
+//   GET    /users/{id}/reservations?status=&from=&pageSize=&cursor=
+// Each request runs on its own thread: a virtual thread where the JDK has
+// them, otherwise a cached platform thread.
+public class HotelHttpServer {
+    private static final int BACKLOG = 4096;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    private final Hotel hotel;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public HotelHttpServer(Hotel hotel, int port) throws IOException {
+        this.hotel = hotel;
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        this.executor = TaskExecutors.newPerTaskExecutor("http-request");
+        server.setExecutor(executor);
+        server.createContext("/rooms/available", this::handleSearch);
+        server.createContext("/users", this::handleUsers);
+        server.createContext("/reservations", this::handleReservations);
+    }
+
+    // HotelHttpServer [port] [dataDirectory]
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        StorageManager storage = args.length > 1
+                ? new StorageManager(Files.createDirectories(Paths.get(args[1])))
+                : new StorageManager();
+        HotelHttpServer server = new HotelHttpServer(new Hotel("Grand Paradise", storage), port);
+        server.start();
+        System.out.println("Listening on port " + server.getPort());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleSearch(HttpExchange exchange) throws IOException {
+        handle(exchange, () -> {
+            requireMethod(exchange, "GET");
+            Map<String, String> query = query(exchange);
+            LocalDate checkIn = date(query, "checkIn");
+            List<RoomQuote> quotes = hotel.quoteAvailableRooms(checkIn, checkOut(query, checkIn),
+                    Integer.parseInt(query.getOrDefault("capacity", "1")));
+            StringBuilder json = new StringBuilder("[");
+            for (RoomQuote quote : quotes) {
+                if (json.length() > 1) json.append(',');
+                appendRoom(json, quote);
+            }
+            return new Response(200, json.append(']').toString());
+        });
+    }
+
+    private void handleUsers(HttpExchange exchange) throws IOException {
+        handle(exchange, () -> {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            if (path.length == 2) {
+                requireMethod(exchange, "POST");
+                Map<String, String> body = parseObject(readBody(exchange));
+                User user = hotel.registerNewUser(required(body, "userId"), required(body, "name"),
+                        required(body, "email"));
+                if (user == null) {
+                    return error(409, "User " + body.get("userId") + " already exists");
+                }
+                return new Response(201, "{\"userId\":" + quote(user.getUserId()) + "}");
+            }
+            if (path.length == 4 && path[3].equals("reservations")) {
+                requireMethod(exchange, "GET");
+                String userId = decode(path[2]);
+                if (hotel.getUser(userId) == null) {
+                    return error(404, "Unknown user " + userId);
+                }
+                Map<String, String> query = query(exchange);
+                ReservationPage page = hotel.getUserReservations(userId,
+                        ReservationStatus.valueOf(query.getOrDefault("status", "ACTIVE").toUpperCase()),
+                        query.containsKey("from") ? date(query, "from") : null,
+                        Integer.parseInt(query.getOrDefault("pageSize", String.valueOf(DEFAULT_PAGE_SIZE))),
+                        query.get("cursor"));
+                StringBuilder json = new StringBuilder("{\"reservations\":[");
+                for (int i = 0; i < page.getReservations().size(); i++) {
+                    if (i > 0) json.append(',');
+                    appendReservation(json, page.getReservations().get(i));
+                }
+                json.append("],\"nextCursor\":").append(page.hasMore() ? quote(page.getNextCursor()) : "null");
+                return new Response(200, json.append('}').toString());
+            }
+            return error(404, "Not found");
+        });
+    }
+
+    private void handleReservations(HttpExchange exchange) throws IOException {
+        handle(exchange, () -> {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            if (path.length == 2) {
+                requireMethod(exchange, "POST");
+                Map<String, String> body = parseObject(readBody(exchange));
+                User user = hotel.getUser(required(body, "userId"));
+                if (user == null) {
+                    return error(404, "Unknown user " + body.get("userId"));
+                }
+                LocalDate checkIn = date(body, "checkIn");
+                Reservation res = hotel.makeReservation(user, required(body, "roomNumber"),
+                        checkIn, checkOut(body, checkIn));
+                if (res == null) {
+                    return error(409, "Room is not available or payment failed");
+                }
+                StringBuilder json = new StringBuilder();
+                appendReservation(json, res);
+                return new Response(201, json.toString());
+            }
+            if (path.length == 3) {
+                requireMethod(exchange, "DELETE");
+                String userId = required(query(exchange), "userId");
+                return hotel.cancelReservation(userId, decode(path[2]))
+                        ? new Response(204, null) : error(404, "Reservation not found");
+            }
+            return error(404, "Not found");
+        });
+    }
+
+    private interface Route {
+        Response call() throws IOException;
+    }
+
+    private static class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private static class MethodNotAllowed extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    // Every exchange is answered and closed, whatever the route throws
+    private static void handle(HttpExchange exchange, Route route) throws IOException {
+        try (exchange) {
+            Response response;
+            try {
+                response = route.call();
+            } catch (MethodNotAllowed e) {
+                response = error(405, "Method not allowed");
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                response = error(400, e.getMessage());
+            } catch (IOException e) {
+                response = error(400, "Could not read request body");
+            } catch (RuntimeException e) {
+                System.err.println("Error handling " + exchange.getRequestURI() + ": " + e);
+                response = error(500, "Internal error");
+            }
+            if (response.body == null) {
+                exchange.sendResponseHeaders(response.status, -1);
+                return;
+            }
+            byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(response.status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, "{\"error\":" + quote(String.valueOf(message)) + "}");
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!exchange.getRequestMethod().equals(method)) {
+            throw new MethodNotAllowed();
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) return params;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(decode(pair.substring(0, eq)), decode(pair.substring(eq + 1)));
+            }
+        }
+        return params;
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing " + name);
+        }
+        return value;
+    }
+
+    private static LocalDate date(Map<String, String> params, String name) {
+        return LocalDate.parse(required(params, name));
+    }
+
+    private static LocalDate checkOut(Map<String, String> params, LocalDate checkIn) {
+        LocalDate checkOut = date(params, "checkOut");
+        if (!checkOut.isAfter(checkIn)) {
+            throw new IllegalArgumentException("checkOut must be after checkIn");
+        }
+        return checkOut;
+    }
+
+    private static void appendRoom(StringBuilder json, RoomQuote roomQuote) {
+        Room room = roomQuote.getRoom();
+        json.append("{\"roomNumber\":").append(quote(room.getRoomNumber()))
+                .append(",\"type\":").append(quote(room.getRoomType()))
+                .append(",\"price\":").append(room.getPrice())
+                .append(",\"capacity\":").append(room.getCapacity())
+                .append(",\"totalCost\":").append(roomQuote.getTotalCost()).append('}');
+    }
+
+    private static void appendReservation(StringBuilder json, Reservation res) {
+        json.append("{\"reservationId\":").append(quote(res.getReservationId()))
+                .append(",\"userId\":").append(quote(res.getUser().getUserId()))
+                .append(",\"roomNumber\":").append(quote(res.getRoom().getRoomNumber()))
+                .append(",\"checkIn\":").append(quote(res.getCheckIn().toString()))
+                .append(",\"checkOut\":").append(quote(res.getCheckOut().toString()))
+                .append(",\"totalCost\":").append(Math.round(res.getTotalCost() * 100) / 100.0)
+                .append(",\"cancelled\":").append(res.isCancelled()).append('}');
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    // Parses a flat JSON object; nested values are rejected. Numbers and
+    // booleans are returned as their literal text.
+    static Map<String, String> parseObject(String json) {
+        Map<String, String> fields = new HashMap<>();
+        int[] pos = {skipSpace(json, 0)};
+        expect(json, pos, '{');
+        if (peek(json, pos) == '}') {
+            pos[0]++;
+            return fields;
+        }
+        while (true) {
+            String key = parseString(json, pos);
+            expect(json, pos, ':');
+            char c = peek(json, pos);
+            String value;
+            if (c == '"') {
+                value = parseString(json, pos);
+            } else {
+                int start = pos[0];
+                while (pos[0] < json.length() && ",} \t\r\n".indexOf(json.charAt(pos[0])) < 0) pos[0]++;
+                value = json.substring(start, pos[0]);
+                if (value.isEmpty() || c == '{' || c == '[') {
+                    throw new IllegalArgumentException("Unsupported JSON value for " + key);
+                }
+                if (value.equals("null")) value = null;
+            }
+            fields.put(key, value);
+            char next = peek(json, pos);
+            pos[0]++;
+            if (next == '}') return fields;
+            if (next != ',') throw new IllegalArgumentException("Malformed JSON body");
+        }
+    }
+
+    private static String parseString(String json, int[] pos) {
+        expect(json, pos, '"');
+        StringBuilder value = new StringBuilder();
+        while (pos[0] < json.length()) {
+            char c = json.charAt(pos[0]++);
+            if (c == '"') return value.toString();
+            if (c == '\\' && pos[0] < json.length()) {
+                char escaped = json.charAt(pos[0]++);
+                switch (escaped) {
+                    case 'n': value.append('\n'); break;
+                    case 't': value.append('\t'); break;
+                    case 'r': value.append('\r'); break;
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'u':
+                        if (pos[0] + 4 > json.length()) throw new IllegalArgumentException("Malformed JSON body");
+                        value.append((char) Integer.parseInt(json.substring(pos[0], pos[0] + 4), 16));
+                        pos[0] += 4;
+                        break;
+                    default: value.append(escaped);
+                }
+            } else {
+                value.append(c);
+            }
+        }
+        throw new IllegalArgumentException("Malformed JSON body");
+    }
+
+    private static void expect(String json, int[] pos, char expected) {
+        if (peek(json, pos) != expected) {
+            throw new IllegalArgumentException("Malformed JSON body");
+        }
+        pos[0]++;
+    }
+
+    private static char peek(String json, int[] pos) {
+        pos[0] = skipSpace(json, pos[0]);
+        if (pos[0] >= json.length()) {
+            throw new IllegalArgumentException("Malformed JSON body");
+        }
+        return json.charAt(pos[0]);
+    }
+
+    private static int skipSpace(String json, int pos) {
+        while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) pos++;
+        return pos;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,171 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Hosts a chain of properties, one Hotel shard each. Every shard has its own
+// storage directory under the service root and its own locks, so bookings at
+// different properties never contend, and the shards found there are reopened
+// when the service starts. Searches fan out across all shards on a fork-join
+// pool and merge the per-shard results by the quoted stay total, then capacity.
+//
+// Guests are registered per property: each shard journals the guests of its
+// own stays. A guest booking at a property they are new to is registered
+// there first, from the User they booked with, so the shard can replay the stay.
+public class HotelService {
+    private static final String NAME_FILE = "property.name";
+
+    private static final Comparator<PropertyRoom> BY_TOTAL_THEN_CAPACITY =
+            Comparator.comparingDouble(PropertyRoom::getTotalCost)
+                    .thenComparingInt(r -> r.getRoom().getCapacity());
+
+    private final Path rootDirectory;
+    private final Map<String, Hotel> properties = new ConcurrentHashMap<>();
+    private final ForkJoinPool searchPool;
+
+    public HotelService(Path rootDirectory) {
+        this(rootDirectory, ForkJoinPool.commonPool());
+    }
+
+    public HotelService(Path rootDirectory, ForkJoinPool searchPool) {
+        this.rootDirectory = rootDirectory;
+        this.searchPool = searchPool;
+        reopenProperties();
+    }
+
+    // Opens the property's shard, creating its storage on first use.
+    public Hotel addProperty(String propertyId, String name) {
+        return properties.computeIfAbsent(propertyId, id -> {
+            try {
+                Path directory = Files.createDirectories(rootDirectory.resolve(id));
+                Path nameFile = directory.resolve(NAME_FILE);
+                if (!Files.exists(nameFile)) {
+                    Files.writeString(nameFile, name, StandardCharsets.UTF_8);
+                }
+                return new Hotel(id, name, new StorageManager(directory));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open property " + id, e);
+            }
+        });
+    }
+
+    // Every directory under the root that addProperty created is a shard
+    private void reopenProperties() {
+        if (!Files.isDirectory(rootDirectory)) return;
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(rootDirectory)) {
+            for (Path directory : directories) {
+                Path nameFile = directory.resolve(NAME_FILE);
+                if (Files.exists(nameFile)) {
+                    addProperty(directory.getFileName().toString(),
+                            Files.readString(nameFile, StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot reopen properties under " + rootDirectory, e);
+        }
+    }
+
+    public Hotel getProperty(String propertyId) {
+        return properties.get(propertyId);
+    }
+
+    public Collection<String> getPropertyIds() {
+        return Collections.unmodifiableSet(properties.keySet());
+    }
+
+    public User registerUser(String propertyId, String userId, String name, String email) {
+        return require(propertyId).registerUser(userId, name, email);
+    }
+
+    public Reservation makeReservation(String propertyId, User user, String roomNumber,
+                                       LocalDate checkIn, LocalDate checkOut) {
+        Hotel hotel = require(propertyId);
+        User guest = hotel.getUser(user.getUserId());
+        if (guest == null) {
+            guest = hotel.registerUser(user.getUserId(), user.getName(), user.getEmail());
+        }
+        return hotel.makeReservation(guest, roomNumber, checkIn, checkOut);
+    }
+
+    public boolean cancelReservation(String propertyId, String userId, String reservationId) {
+        return require(propertyId).cancelReservation(userId, reservationId);
+    }
+
+    public List<PropertyRoom> searchAvailableRooms(LocalDate checkIn, LocalDate checkOut, int capacity) {
+        List<Map.Entry<String, Hotel>> shards = new ArrayList<>(properties.entrySet());
+        if (shards.isEmpty()) return new ArrayList<>();
+        return searchPool.invoke(new SearchTask(shards, 0, shards.size(), checkIn, checkOut, capacity));
+    }
+
+    private Hotel require(String propertyId) {
+        Hotel hotel = properties.get(propertyId);
+        if (hotel == null) {
+            throw new IllegalArgumentException("Unknown property: " + propertyId);
+        }
+        return hotel;
+    }
+
+    // Searches shards [from, to) by splitting in halves and merging the two
+    // sorted halves on the way back up.
+    private static class SearchTask extends RecursiveTask<List<PropertyRoom>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Map.Entry<String, Hotel>> shards;
+        private final int from;
+        private final int to;
+        private final LocalDate checkIn;
+        private final LocalDate checkOut;
+        private final int capacity;
+
+        SearchTask(List<Map.Entry<String, Hotel>> shards, int from, int to,
+                   LocalDate checkIn, LocalDate checkOut, int capacity) {
+            this.shards = shards;
+            this.from = from;
+            this.to = to;
+            this.checkIn = checkIn;
+            this.checkOut = checkOut;
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected List<PropertyRoom> compute() {
+            if (to - from == 1) {
+                Map.Entry<String, Hotel> shard = shards.get(from);
+                List<PropertyRoom> found = new ArrayList<>();
+                for (RoomQuote quote : shard.getValue().quoteAvailableRooms(checkIn, checkOut, capacity)) {
+                    found.add(new PropertyRoom(shard.getKey(), quote.getRoom(), quote.getTotalCost()));
+                }
+                found.sort(BY_TOTAL_THEN_CAPACITY);
+                return found;
+            }
+            int mid = (from + to) >>> 1;
+            SearchTask left = new SearchTask(shards, from, mid, checkIn, checkOut, capacity);
+            left.fork();
+            List<PropertyRoom> right = new SearchTask(shards, mid, to, checkIn, checkOut, capacity).compute();
+            return merge(left.join(), right);
+        }
+
+        private static List<PropertyRoom> merge(List<PropertyRoom> a, List<PropertyRoom> b) {
+            List<PropertyRoom> merged = new ArrayList<>(a.size() + b.size());
+            int i = 0, j = 0;
+            while (i < a.size() && j < b.size()) {
+                merged.add(BY_TOTAL_THEN_CAPACITY.compare(a.get(i), b.get(j)) <= 0 ? a.get(i++) : b.get(j++));
+            }
+            merged.addAll(a.subList(i, a.size()));
+            merged.addAll(b.subList(j, b.size()));
+            return merged;
+        }
+    }
+}
\ No newline at end of file
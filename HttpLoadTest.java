@@ -0,0 +1,100 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+// Loopback load test: starts a HotelHttpServer on an ephemeral port and
+// drives it with up to <concurrency> requests in flight over as many
+// connections, mixing searches, bookings and history reads.
+//   java HttpLoadTest [concurrency] [requests] [rooms]
+public class HttpLoadTest {
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        int roomCount = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        int userCount = 1000;
+
+        PaymentProcessor.setGateway(amount -> CompletableFuture.completedFuture(true));
+        Path dir = Files.createTempDirectory("hotel-http");
+        Hotel hotel = new Hotel("Load Test", new StorageManager(dir, FsyncPolicy.OS_MANAGED, 0));
+        for (int i = 0; i < roomCount; i++) {
+            hotel.addRoom(BinarySnapshot.newRoom(i % 3 == 0 ? "Deluxe" : "Standard", "L" + i, 100 + i % 50, 1 + i % 4));
+        }
+        for (int i = 0; i < userCount; i++) {
+            hotel.registerUser("guest" + i, "Guest " + i, "guest" + i + "@example.com");
+        }
+        HotelHttpServer server = new HotelHttpServer(hotel, 0);
+        server.start();
+        String base = "http://127.0.0.1:" + server.getPort();
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()))
+                .build();
+        Semaphore inFlight = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(requests);
+        LatencyHistogram latency = new LatencyHistogram();
+        Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        LongAdder failures = new LongAdder();
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDate start = LocalDate.now().plusDays(30);
+
+        long began = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            LocalDate checkIn = start.plusDays(random.nextInt(365));
+            LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(5));
+            int op = random.nextInt(100);
+            HttpRequest request;
+            if (op < 70) {
+                request = HttpRequest.newBuilder(URI.create(base + "/rooms/available?checkIn=" + checkIn
+                        + "&checkOut=" + checkOut + "&capacity=" + (1 + random.nextInt(4)))).GET().build();
+            } else if (op < 90) {
+                String body = String.format("{\"userId\":\"guest%d\",\"roomNumber\":\"L%d\",\"checkIn\":\"%s\",\"checkOut\":\"%s\"}",
+                        random.nextInt(userCount), random.nextInt(roomCount), checkIn, checkOut);
+                request = HttpRequest.newBuilder(URI.create(base + "/reservations"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+            } else {
+                request = HttpRequest.newBuilder(URI.create(base + "/users/guest" + random.nextInt(userCount)
+                        + "/reservations?pageSize=20")).GET().build();
+            }
+
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, e) -> {
+                latency.record(System.nanoTime() - sent);
+                if (e != null) {
+                    failures.increment();
+                } else {
+                    statuses.computeIfAbsent(response.statusCode(), s -> new LongAdder()).increment();
+                }
+                inFlight.release();
+                done.countDown();
+            });
+        }
+        done.await();
+        double seconds = (System.nanoTime() - began) / 1e9;
+
+        System.out.printf("%d requests, %d in flight, %.2f s, %.0f req/s%n",
+                requests, concurrency, seconds, requests / seconds);
+        System.out.printf("latency ms  p50 %.2f  p90 %.2f  p99 %.2f  max %.2f%n",
+                latency.percentile(50) / 1e6, latency.percentile(90) / 1e6,
+                latency.percentile(99) / 1e6, latency.getMax() / 1e6);
+        System.out.println("statuses " + statuses + ", transport failures " + failures.sum());
+        server.stop();
+        System.exit(0);
+    }
+}
\ No newline at end of file
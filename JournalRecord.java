@@ -0,0 +1,176 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+// A single mutation appended to the journal between checkpoints.
+public class JournalRecord {
+    public enum Type {
+        USER_REGISTERED, RESERVATION_CONFIRMED, RESERVATION_CANCELLED, GROUP_STAYS_CONFIRMED, ROOM_ADDED,
+        RATE_SET, RATE_CLEARED
+    }
+
+    private final Type type;
+    private final String[] fields;
+    private String[][] stays; // id, room number and cost of each stay of a group
+    private long sequence;
+
+    private JournalRecord(Type type, String... fields) {
+        this.type = type;
+        this.fields = fields;
+    }
+
+    public static JournalRecord roomAdded(Room room) {
+        return new JournalRecord(Type.ROOM_ADDED, room.getRoomType(), room.getRoomNumber(),
+                Double.toString(room.getPrice()), Integer.toString(room.getCapacity()));
+    }
+
+    public static JournalRecord userRegistered(User user) {
+        return new JournalRecord(Type.USER_REGISTERED,
+                user.getUserId(), user.getName(), user.getEmail());
+    }
+
+    public static JournalRecord reservationConfirmed(Reservation res) {
+        return new JournalRecord(Type.RESERVATION_CONFIRMED,
+                res.getReservationId(), res.getUser().getUserId(), res.getRoom().getRoomNumber(),
+                res.getCheckIn().toString(), res.getCheckOut().toString(),
+                Double.toString(res.getTotalCost()));
+    }
+
+    // All stays of one group booking share user and dates and go in one
+    // entry; each stay's ID, room number and cost is a field of its own.
+    public static JournalRecord groupConfirmed(List<Reservation> group) {
+        Reservation first = group.get(0);
+        JournalRecord record = new JournalRecord(Type.GROUP_STAYS_CONFIRMED,
+                first.getUser().getUserId(), first.getCheckIn().toString(), first.getCheckOut().toString());
+        record.stays = new String[group.size()][];
+        for (int i = 0; i < group.size(); i++) {
+            Reservation res = group.get(i);
+            record.stays[i] = new String[] {res.getReservationId(), res.getRoom().getRoomNumber(),
+                    Double.toString(res.getTotalCost())};
+        }
+        return record;
+    }
+
+    public static JournalRecord reservationCancelled(Reservation res) {
+        return new JournalRecord(Type.RESERVATION_CANCELLED, res.getReservationId());
+    }
+
+    public static JournalRecord rateSet(String roomType, LocalDate from, LocalDate to, double nightlyRate) {
+        return new JournalRecord(Type.RATE_SET, roomType, from.toString(), to.toString(),
+                Double.toString(nightlyRate));
+    }
+
+    public static JournalRecord rateCleared(String roomType, LocalDate from, LocalDate to) {
+        return new JournalRecord(Type.RATE_CLEARED, roomType, from.toString(), to.toString());
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeLong(sequence);
+        out.writeByte(type.ordinal());
+        out.writeByte(fields.length);
+        for (String field : fields) {
+            out.writeUTF(field);
+        }
+        if (type == Type.GROUP_STAYS_CONFIRMED) {
+            out.writeInt(stays.length);
+            for (String[] stay : stays) {
+                for (String field : stay) {
+                    out.writeUTF(field);
+                }
+            }
+        }
+    }
+
+    static JournalRecord read(DataInputStream in) throws IOException {
+        long sequence = in.readLong();
+        Type type = Type.values()[in.readUnsignedByte()];
+        String[] fields = new String[in.readUnsignedByte()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = in.readUTF();
+        }
+        JournalRecord record = new JournalRecord(type, fields);
+        if (type == Type.GROUP_STAYS_CONFIRMED) {
+            record.stays = new String[in.readInt()][];
+            for (int i = 0; i < record.stays.length; i++) {
+                record.stays[i] = new String[] {in.readUTF(), in.readUTF(), in.readUTF()};
+            }
+        }
+        record.sequence = sequence;
+        return record;
+    }
+
+    // Re-applies this mutation the same way Hotel applied it live.
+    void applyTo(HotelData data, Map<String, Room> roomsByNumber,
+                 Map<String, Reservation> reservationsById, UserStore users) {
+        switch (type) {
+            case ROOM_ADDED:
+                if (roomsByNumber.containsKey(fields[1])) break;
+                Room added = BinarySnapshot.newRoom(fields[0], fields[1],
+                        Double.parseDouble(fields[2]), Integer.parseInt(fields[3]));
+                data.getRooms().add(added);
+                roomsByNumber.put(added.getRoomNumber(), added);
+                break;
+            case USER_REGISTERED:
+                User registered = new User(fields[0], fields[1], fields[2]);
+                data.getUsers().put(fields[0], registered);
+                users.register(registered);
+                break;
+            case RESERVATION_CONFIRMED:
+                confirm(data, reservationsById, fields[0], guest(data, users, fields[1]),
+                        roomsByNumber.get(fields[2]), LocalDate.parse(fields[3]), LocalDate.parse(fields[4]),
+                        fields[5]);
+                break;
+            case GROUP_STAYS_CONFIRMED:
+                User member = guest(data, users, fields[0]);
+                for (String[] stay : stays) {
+                    confirm(data, reservationsById, stay[0], member, roomsByNumber.get(stay[1]),
+                            LocalDate.parse(fields[1]), LocalDate.parse(fields[2]), stay[2]);
+                }
+                break;
+            case RESERVATION_CANCELLED:
+                Reservation cancelled = reservationsById.get(fields[0]);
+                if (cancelled != null) {
+                    cancelled.cancelReservation();
+                }
+                break;
+            case RATE_SET:
+                data.getRates().setRate(fields[0], LocalDate.parse(fields[1]), LocalDate.parse(fields[2]),
+                        Double.parseDouble(fields[3]));
+                break;
+            case RATE_CLEARED:
+                data.getRates().clearRate(fields[0], LocalDate.parse(fields[1]), LocalDate.parse(fields[2]));
+                break;
+        }
+    }
+
+    // Guests outside the snapshot are read from the user segments
+    private static User guest(HotelData data, UserStore users, String userId) {
+        User user = data.getUsers().get(userId);
+        if (user == null) {
+            user = users.get(userId);
+            if (user != null) {
+                data.getUsers().put(userId, user);
+            }
+        }
+        return user;
+    }
+
+    private static void confirm(HotelData data, Map<String, Reservation> reservationsById, String reservationId,
+                                User user, Room room, LocalDate checkIn, LocalDate checkOut, String totalCost) {
+        // A stay the journal cannot place means the files do not belong together
+        if (user == null) throw new IllegalStateException("stay " + reservationId + " is for an unknown guest");
+        if (room == null) throw new IllegalStateException("stay " + reservationId + " is for an unknown room");
+        Reservation res = new Reservation(reservationId, user, room, checkIn, checkOut, Double.parseDouble(totalCost));
+        res.confirmReservation();
+        data.getReservations().add(res);
+        user.addReservation(res);
+        reservationsById.put(res.getReservationId(), res);
+    }
+
+    public Type getType() { return type; }
+    public long getSequence() { return sequence; }
+    void setSequence(long sequence) { this.sequence = sequence; }
+}
\ No newline at end of file
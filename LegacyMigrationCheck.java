@@ -0,0 +1,74 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Migrates fixtures/legacy_hotel_data.ser, written by the single-file edition
+// (HotelReservationSystem.java), and checks that its guests and bookings
+// survive both the migration and a restart from the new snapshot.
+//   java LegacyMigrationCheck [fixture]
+public class LegacyMigrationCheck {
+    public static void main(String[] args) throws Exception {
+        Path fixture = Paths.get(args.length > 0 ? args[0] : "fixtures/legacy_hotel_data.ser");
+        Path dir = Files.createTempDirectory("hotel-migrate");
+        Files.copy(fixture, dir.resolve("hotel_data.ser"));
+
+        List<String> failures = new ArrayList<>();
+        Hotel migrated = new Hotel("Migrated", new StorageManager(dir));
+        verify(migrated, failures, "after migration");
+        if (!Files.exists(dir.resolve("hotel_data.ser.migrated"))) {
+            failures.add("hotel_data.ser was not renamed after migration");
+        }
+        verify(new Hotel("Restarted", new StorageManager(dir)), failures, "after restart");
+        if (migrated.getArchivedReservations("bob", null, null).size() != 1) {
+            failures.add("bob's cancelled stay was not archived");
+        }
+
+        deleteRecursively(dir);
+        if (!failures.isEmpty()) {
+            failures.forEach(System.out::println);
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+        System.out.println("PASSED");
+    }
+
+    private static void verify(Hotel hotel, List<String> failures, String stage) {
+        if (hotel.getRooms().size() != 5) {
+            failures.add(stage + ": expected 5 rooms, found " + hotel.getRooms().size());
+        }
+        expectStay(hotel, failures, stage, "alice", "Alice Smith", "201", LocalDate.of(2099, 6, 1), 449.97);
+        expectStay(hotel, failures, stage, "bob", "Bob Jones", "301", LocalDate.of(2099, 7, 10), 499.98);
+    }
+
+    private static void expectStay(Hotel hotel, List<String> failures, String stage, String userId,
+                                   String name, String roomNumber, LocalDate checkIn, double totalCost) {
+        User user = hotel.getUser(userId);
+        if (user == null || !user.getName().equals(name)) {
+            failures.add(stage + ": guest " + userId + " missing");
+            return;
+        }
+        List<Reservation> stays = hotel.getUserReservations(userId);
+        if (stays.size() != 1) {
+            failures.add(stage + ": " + userId + " has " + stays.size() + " active stays, expected 1");
+            return;
+        }
+        Reservation res = stays.get(0);
+        if (!res.getRoom().getRoomNumber().equals(roomNumber) || !res.getCheckIn().equals(checkIn)
+                || Math.abs(res.getTotalCost() - totalCost) > 0.001 || !res.isConfirmed()
+                || hotel.getReservation(res.getReservationId()) != res) {
+            failures.add(stage + ": unexpected stay for " + userId + ": " + res.getRoom().getRoomNumber()
+                    + " " + res.getCheckIn() + " " + res.getTotalCost());
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (var paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,83 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Process-wide registry of operation stats. Each entry is registered as the
+// MBean HotelReservationSystem:type=Operation,name=<operation>.
+public class Metrics {
+    private static final String DOMAIN = "HotelReservationSystem";
+    private static final Map<String, OperationStats> OPERATIONS = new ConcurrentSkipListMap<>();
+
+    public static final OperationStats SEARCH = operation("searchAvailableRooms");
+    public static final OperationStats BOOK = operation("makeReservation");
+    public static final OperationStats GROUP_BOOK = operation("makeGroupReservation");
+    public static final OperationStats CANCEL = operation("cancelReservation");
+    public static final OperationStats REGISTER = operation("registerUser");
+    public static final OperationStats PAYMENT = operation("processPayment");
+    public static final OperationStats SAVE = operation("saveData");
+    public static final OperationStats LOAD = operation("loadData");
+
+    public static OperationStats operation(String name) {
+        return OPERATIONS.computeIfAbsent(name, n -> {
+            OperationStats stats = new OperationStats(n);
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(stats,
+                        new ObjectName(DOMAIN + ":type=Operation,name=" + ObjectName.quote(n)));
+            } catch (JMException e) {
+                System.err.println("Error registering metrics for " + n + ": " + e.getMessage());
+            }
+            return stats;
+        });
+    }
+
+    // Registers mbean as HotelReservationSystem:type=<type>,name=<name>, replacing any previous one.
+    public static void register(String type, String name, Object mbean) {
+        register(type, null, name, mbean);
+    }
+
+    // As above, with a property=<propertyId> key so that shards of a HotelService
+    // sharing a display name get distinct ObjectNames.
+    public static void register(String type, String propertyId, String name, Object mbean) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type
+                    + (propertyId == null ? "" : ",property=" + ObjectName.quote(propertyId))
+                    + ",name=" + ObjectName.quote(name));
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(mbean, objectName);
+        } catch (JMException e) {
+            System.err.println("Error registering " + type + " " + name + ": " + e.getMessage());
+        }
+    }
+
+    public static void dump(PrintStream out) {
+        for (OperationStats stats : OPERATIONS.values()) {
+            if (stats.getCount() > 0 || stats.getErrors() > 0) {
+                out.println(stats);
+            }
+        }
+    }
+
+    // Prints every operation with activity to out every intervalSeconds.
+    public static ScheduledExecutorService startReporter(long intervalSeconds, PrintStream out) {
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> {
+            out.println("--- metrics ---");
+            dump(out);
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        return reporter;
+    }
+}
\ No newline at end of file
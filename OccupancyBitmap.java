@@ -0,0 +1,160 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Immutable sparse bitmap of occupied epoch days. Days are grouped into chunks
+// of CHUNK_WORDS longs that exist only while they hold a set bit. set and clear
+// return a new bitmap that copies the chunks they touch and shares the rest.
+public final class OccupancyBitmap {
+    static final int CHUNK_SHIFT = 4;
+    static final int CHUNK_WORDS = 1 << CHUNK_SHIFT; // 1024 days per chunk
+
+    public static final OccupancyBitmap EMPTY = new OccupancyBitmap(new long[0], new long[0][]);
+
+    private final long[] chunkIndexes; // sorted
+    private final long[][] chunks;
+
+    private OccupancyBitmap(long[] chunkIndexes, long[][] chunks) {
+        this.chunkIndexes = chunkIndexes;
+        this.chunks = chunks;
+    }
+
+    // Bitmap with every [fromDays[i], toDays[i]] range set, built in one pass
+    public static OccupancyBitmap of(long[] fromDays, long[] toDays) {
+        TreeMap<Long, long[]> built = new TreeMap<>();
+        for (int r = 0; r < fromDays.length; r++) {
+            for (long word = fromDays[r] >> 6; word <= toDays[r] >> 6; word++) {
+                long[] chunk = built.computeIfAbsent(word >> CHUNK_SHIFT, c -> new long[CHUNK_WORDS]);
+                chunk[(int) (word & (CHUNK_WORDS - 1))] |= mask(word, fromDays[r], toDays[r]);
+            }
+        }
+        long[] indexes = new long[built.size()];
+        long[][] chunks = new long[built.size()][];
+        int i = 0;
+        for (Map.Entry<Long, long[]> entry : built.entrySet()) {
+            indexes[i] = entry.getKey();
+            chunks[i++] = entry.getValue();
+        }
+        return new OccupancyBitmap(indexes, chunks);
+    }
+
+    public OccupancyBitmap set(long fromDay, long toDay) {
+        return update(fromDay, toDay, true);
+    }
+
+    public OccupancyBitmap clear(long fromDay, long toDay) {
+        return update(fromDay, toDay, false);
+    }
+
+    private OccupancyBitmap update(long fromDay, long toDay, boolean occupied) {
+        long firstChunk = (fromDay >> 6) >> CHUNK_SHIFT;
+        long lastChunk = (toDay >> 6) >> CHUNK_SHIFT;
+        int touched = (int) (lastChunk - firstChunk + 1);
+        long[] indexes = new long[chunkIndexes.length + touched];
+        long[][] words = new long[indexes.length][];
+        int in = 0;
+        int out = 0;
+        while (in < chunkIndexes.length && chunkIndexes[in] < firstChunk) {
+            indexes[out] = chunkIndexes[in];
+            words[out++] = chunks[in++];
+        }
+        for (long chunkIndex = firstChunk; chunkIndex <= lastChunk; chunkIndex++) {
+            long[] chunk;
+            if (in < chunkIndexes.length && chunkIndexes[in] == chunkIndex) {
+                chunk = chunks[in++].clone();
+            } else if (occupied) {
+                chunk = new long[CHUNK_WORDS];
+            } else {
+                continue;
+            }
+            long firstWord = Math.max(fromDay >> 6, chunkIndex << CHUNK_SHIFT);
+            long lastWord = Math.min(toDay >> 6, ((chunkIndex + 1) << CHUNK_SHIFT) - 1);
+            for (long word = firstWord; word <= lastWord; word++) {
+                int i = (int) (word & (CHUNK_WORDS - 1));
+                chunk[i] = occupied ? chunk[i] | mask(word, fromDay, toDay) : chunk[i] & ~mask(word, fromDay, toDay);
+            }
+            if (!isEmpty(chunk)) {
+                indexes[out] = chunkIndex;
+                words[out++] = chunk;
+            }
+        }
+        while (in < chunkIndexes.length) {
+            indexes[out] = chunkIndexes[in];
+            words[out++] = chunks[in++];
+        }
+        return new OccupancyBitmap(Arrays.copyOf(indexes, out), Arrays.copyOf(words, out));
+    }
+
+    public boolean isClear(long fromDay, long toDay) {
+        return isClear(fromDay >> 6, masks(fromDay, toDay));
+    }
+
+    // Checks precomputed range masks starting at firstWord, see masks().
+    boolean isClear(long firstWord, long[] masks) {
+        long[] chunk = null;
+        long chunkIndex = Long.MIN_VALUE;
+        for (int i = 0; i < masks.length; i++) {
+            long word = firstWord + i;
+            if (word >> CHUNK_SHIFT != chunkIndex) {
+                chunkIndex = word >> CHUNK_SHIFT;
+                int found = Arrays.binarySearch(chunkIndexes, chunkIndex);
+                chunk = found >= 0 ? chunks[found] : null;
+            }
+            if (chunk != null && (chunk[(int) (word & (CHUNK_WORDS - 1))] & masks[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Maximal runs of occupied days as {fromDay, toDay}, in order
+    public List<long[]> runs() {
+        List<long[]> runs = new ArrayList<>();
+        long[] run = null;
+        for (int c = 0; c < chunks.length; c++) {
+            for (int w = 0; w < CHUNK_WORDS; w++) {
+                long bits = chunks[c][w];
+                long firstDay = ((chunkIndexes[c] << CHUNK_SHIFT) + w) << 6;
+                while (bits != 0) {
+                    long day = firstDay + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (run != null && run[1] == day - 1) {
+                        run[1] = day;
+                    } else {
+                        run = new long[] {day, day};
+                        runs.add(run);
+                    }
+                }
+            }
+        }
+        return runs;
+    }
+
+    public int chunkCount() {
+        return chunks.length;
+    }
+
+    static long[] masks(long fromDay, long toDay) {
+        long firstWord = fromDay >> 6;
+        long[] masks = new long[(int) ((toDay >> 6) - firstWord + 1)];
+        for (int i = 0; i < masks.length; i++) {
+            masks[i] = mask(firstWord + i, fromDay, toDay);
+        }
+        return masks;
+    }
+
+    private static long mask(long word, long fromDay, long toDay) {
+        long first = Math.max(fromDay, word << 6) & 63;
+        long last = Math.min(toDay, (word << 6) + 63) & 63;
+        return (-1L >>> (63 - last)) & (-1L << first);
+    }
+
+    private static boolean isEmpty(long[] chunk) {
+        for (long word : chunk) {
+            if (word != 0) return false;
+        }
+        return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,170 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Multi-version availability: every change publishes a new immutable
+// AvailabilityVersion by compare-and-set, and readers take the current one
+// with a single volatile read and scan it without locking, so a search sees
+// one consistent point in time while bookings carry on. Changes to one room
+// must be serialized by the caller; changes to different rooms may race and
+// simply retry. Check-in through check-out are marked inclusive, matching
+// Hotel's overlap rule. Each published change is reported to the listener
+// once it is visible.
+public class OccupancyCalendar {
+    private static final Listener NO_LISTENER = new Listener() {
+        @Override public void occupancyChanged(Room room, long fromDay, long toDay, long version) { }
+        @Override public void availabilityChanged(Room room, boolean available, long version) { }
+    };
+
+    private final Map<Room, Integer> slots = new ConcurrentHashMap<>();
+    private final List<Room> roomsBySlot = new ArrayList<>(); // guarded by this
+    private final AtomicReference<AvailabilityVersion> current = new AtomicReference<>(AvailabilityVersion.EMPTY);
+    private final Listener listener;
+
+    // Told what each published version changed, with that version's number
+    public interface Listener {
+        // Days fromDay through toDay were occupied or released on room
+        void occupancyChanged(Room room, long fromDay, long toDay, long version);
+
+        // The room's availability flag is now available, on every date
+        void availabilityChanged(Room room, boolean available, long version);
+    }
+
+    private interface Change {
+        AvailabilityVersion apply(AvailabilityVersion version, int slot);
+    }
+
+    public OccupancyCalendar() {
+        this(NO_LISTENER);
+    }
+
+    public OccupancyCalendar(Listener listener) {
+        this.listener = listener;
+    }
+
+    public synchronized void addRoom(Room room) {
+        if (slots.containsKey(room)) return;
+        int slot = roomsBySlot.size();
+        roomsBySlot.add(room);
+        AvailabilityVersion version;
+        AvailabilityVersion next;
+        do {
+            version = current.get();
+            next = version.with(slot, room.isAvailable(), OccupancyBitmap.EMPTY);
+        } while (!current.compareAndSet(version, next));
+        slots.put(room, slot);
+        listener.availabilityChanged(room, room.isAvailable(), next.getNumber());
+    }
+
+    public void occupy(Reservation reservation) {
+        long from = reservation.getCheckIn().toEpochDay();
+        long to = reservation.getCheckOut().toEpochDay();
+        Room room = reservation.getRoom();
+        publish(room, from, to, (version, slot) ->
+                version.with(slot, room.isAvailable(), version.occupancy(slot).set(from, to)));
+    }
+
+    public void release(Reservation reservation) {
+        long from = reservation.getCheckIn().toEpochDay();
+        long to = reservation.getCheckOut().toEpochDay();
+        Room room = reservation.getRoom();
+        publish(room, from, to, (version, slot) ->
+                version.with(slot, room.isAvailable(), version.occupancy(slot).clear(from, to)));
+    }
+
+    // Publishes a change to the room's availability flag
+    public void refresh(Room room) {
+        publish(room, 1, 0, (version, slot) -> version.with(slot, room.isAvailable(), version.occupancy(slot)));
+    }
+
+    // Replaces every room's occupancy with these stays, one bitmap per room
+    public synchronized void rebuild(Collection<Reservation> reservations) {
+        List<List<Reservation>> bySlot = new ArrayList<>(roomsBySlot.size());
+        for (int slot = 0; slot < roomsBySlot.size(); slot++) {
+            bySlot.add(new ArrayList<>());
+        }
+        for (Reservation res : reservations) {
+            Integer slot = slots.get(res.getRoom());
+            if (slot != null && !res.isCancelled()) {
+                bySlot.get(slot).add(res);
+            }
+        }
+        AvailabilityVersion version = current.get(); // replaced slot by slot so version numbers keep rising
+        for (int slot = 0; slot < roomsBySlot.size(); slot++) {
+            List<Reservation> stays = bySlot.get(slot);
+            long[] fromDays = new long[stays.size()];
+            long[] toDays = new long[stays.size()];
+            for (int i = 0; i < stays.size(); i++) {
+                fromDays[i] = stays.get(i).getCheckIn().toEpochDay();
+                toDays[i] = stays.get(i).getCheckOut().toEpochDay();
+            }
+            version = version.with(slot, roomsBySlot.get(slot).isAvailable(), OccupancyBitmap.of(fromDays, toDays));
+        }
+        current.set(version);
+        for (Room room : roomsBySlot) {
+            listener.availabilityChanged(room, room.isAvailable(), version.getNumber());
+        }
+    }
+
+    // The room's occupied days in the latest version, see OccupancyBitmap.runs()
+    public List<long[]> occupiedDays(Room room) {
+        Integer slot = slots.get(room);
+        AvailabilityVersion version = current.get();
+        return slot == null || slot >= version.size() ? new ArrayList<>() : version.occupancy(slot).runs();
+    }
+
+    // The latest published version
+    public AvailabilityVersion current() {
+        return current.get();
+    }
+
+    public boolean isFree(Room room, LocalDate checkIn, LocalDate checkOut) {
+        return !freeRooms(List.of(room), checkIn, checkOut).isEmpty();
+    }
+
+    // Available rooms free for the whole stay, all as of one version. The
+    // range masks are built once and reused for every room.
+    public List<Room> freeRooms(Collection<Room> rooms, LocalDate checkIn, LocalDate checkOut) {
+        return freeRooms(current.get(), rooms, checkIn, checkOut);
+    }
+
+    public List<Room> freeRooms(AvailabilityVersion version, Collection<Room> rooms,
+                                LocalDate checkIn, LocalDate checkOut) {
+        long fromDay = checkIn.toEpochDay();
+        long[] masks = OccupancyBitmap.masks(fromDay, checkOut.toEpochDay());
+        List<Room> free = new ArrayList<>();
+        for (Room room : rooms) {
+            Integer slot = slots.get(room);
+            // Rooms added after this version are left out
+            if (slot != null && slot < version.size() && version.isFree(slot, fromDay >> 6, masks)) {
+                free.add(room);
+            }
+        }
+        return free;
+    }
+
+    // Publishes the change and reports it; fromDay > toDay if no days changed
+    private void publish(Room room, long fromDay, long toDay, Change change) {
+        Integer slot = slots.get(room);
+        if (slot == null) {
+            addRoom(room);
+            slot = slots.get(room);
+        }
+        AvailabilityVersion version;
+        AvailabilityVersion next;
+        do {
+            version = current.get();
+            next = change.apply(version, slot);
+        } while (!current.compareAndSet(version, next));
+        if (next.isAvailable(slot) != version.isAvailable(slot)) {
+            listener.availabilityChanged(room, next.isAvailable(slot), next.getNumber());
+        }
+        if (fromDay <= toDay) {
+            listener.occupancyChanged(room, fromDay, toDay, next.getNumber());
+        }
+    }
+}
\ No newline at end of file
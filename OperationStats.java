@@ -0,0 +1,44 @@
+import java.util.concurrent.atomic.LongAdder;
+
+public class OperationStats implements OperationStatsMBean {
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final long createdNanos = System.nanoTime();
+
+    public OperationStats(String name) {
+        this.name = name;
+    }
+
+    // Typical use: long start = System.nanoTime(); ... stats.record(start);
+    public void record(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    public String getName() { return name; }
+
+    @Override public long getCount() { return latency.getCount(); }
+    @Override public long getErrors() { return errors.sum(); }
+    @Override public double getMeanMicros() { return latency.mean() / 1e3; }
+    @Override public double getP50Micros() { return latency.percentile(50) / 1e3; }
+    @Override public double getP99Micros() { return latency.percentile(99) / 1e3; }
+    @Override public double getP999Micros() { return latency.percentile(99.9) / 1e3; }
+    @Override public double getMaxMicros() { return latency.getMax() / 1e3; }
+
+    @Override
+    public double getThroughputPerSecond() {
+        double seconds = (System.nanoTime() - createdNanos) / 1e9;
+        return seconds > 0 ? getCount() / seconds : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-22s count=%d errors=%d rate=%.1f/s mean=%.1fus p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus",
+                name, getCount(), getErrors(), getThroughputPerSecond(), getMeanMicros(),
+                getP50Micros(), getP99Micros(), getP999Micros(), getMaxMicros());
+    }
+}
\ No newline at end of file
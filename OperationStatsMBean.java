@@ -0,0 +1,11 @@
+// JMX view of one instrumented operation. Latencies are in microseconds.
+public interface OperationStatsMBean {
+    long getCount();
+    long getErrors();
+    double getThroughputPerSecond();
+    double getMeanMicros();
+    double getP50Micros();
+    double getP99Micros();
+    double getP999Micros();
+    double getMaxMicros();
+}
\ No newline at end of file
@@ -0,0 +1,12 @@
+import java.util.concurrent.CompletableFuture;
+
+public interface PaymentGateway {
+    // Completes with true once the charge settles, false if it was declined.
+    CompletableFuture<Boolean> charge(double amount);
+
+    // Returns a settled charge to the guest. Completes with false if the
+    // gateway cannot refund it.
+    default CompletableFuture<Boolean> refund(double amount) {
+        return CompletableFuture.completedFuture(false);
+    }
+}
\ No newline at end of file
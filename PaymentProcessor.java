@@ -1,7 +1,45 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 public class PaymentProcessor {
+    private static volatile PaymentGateway gateway =
+            amount -> CompletableFuture.completedFuture(processPayment(amount));
+
     public static boolean processPayment(double amount) {
         // Simulate payment processing
         System.out.printf("Processing payment of $%.2f...\n", amount);
         return true; // Always succeeds in simulation
     }
+
+    public static CompletableFuture<Boolean> processPaymentAsync(double amount) {
+        return gateway.charge(amount);
+    }
+
+    // Completes with false if the charge has not settled within the timeout.
+    // The charge keeps running, and if it settles after that it is refunded,
+    // since the caller has already given up the booking it paid for.
+    public static CompletableFuture<Boolean> processPaymentAsync(double amount, long timeout, TimeUnit unit) {
+        PaymentGateway charged = gateway;
+        CompletableFuture<Boolean> outcome = new CompletableFuture<Boolean>().orTimeout(timeout, unit);
+        charged.charge(amount).whenComplete((paid, e) -> {
+            boolean settled = e == null && Boolean.TRUE.equals(paid);
+            if (!outcome.complete(settled) && settled) {
+                refundLateCharge(charged, amount);
+            }
+        });
+        return outcome.exceptionally(e -> false);
+    }
+
+    private static void refundLateCharge(PaymentGateway charged, double amount) {
+        charged.refund(amount).whenComplete((refunded, e) -> {
+            if (e != null || !Boolean.TRUE.equals(refunded)) {
+                System.err.printf("Payment of $%.2f settled after its hold was released and could not be refunded%n",
+                        amount);
+            }
+        });
+    }
+
+    public static void setGateway(PaymentGateway paymentGateway) {
+        gateway = paymentGateway;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+// A room search result tagged with the property that owns the room and
+// priced for the stay searched.
+public class PropertyRoom {
+    private final String propertyId;
+    private final Room room;
+    private final double totalCost;
+
+    public PropertyRoom(String propertyId, Room room, double totalCost) {
+        this.propertyId = propertyId;
+        this.room = room;
+        this.totalCost = totalCost;
+    }
+
+    // Getters
+    public String getPropertyId() { return propertyId; }
+    public Room getRoom() { return room; }
+    public double getTotalCost() { return totalCost; }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %s - $%.2f total", propertyId, room, totalCost);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,127 @@
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Nightly rates per room type, held as primitive arrays over a window of days
+// together with prefix sums, so any stay is quoted with two lookups per array.
+// Nights without a rate fall back to the room's base price. Updates replace a
+// type's arrays as a whole, so quotes never see a half-applied change.
+public class RateCalendar {
+    static final long UNSET = -1;
+
+    private final Map<String, Rates> byType = new ConcurrentHashMap<>();
+
+    private static class Rates {
+        final long firstDay;
+        final long[] cents;      // rate per night, or UNSET
+        final long[] rateSums;   // rateSums[i] = total of set rates before night i
+        final int[] rateNights;  // rateNights[i] = number of set nights before night i
+
+        Rates(long firstDay, long[] cents, long[] rateSums, int[] rateNights) {
+            this.firstDay = firstDay;
+            this.cents = cents;
+            this.rateSums = rateSums;
+            this.rateNights = rateNights;
+        }
+    }
+
+    // Total for the nights checkIn..checkOut-1, in cents.
+    public long quote(Room room, LocalDate checkIn, LocalDate checkOut) {
+        long nights = checkOut.toEpochDay() - checkIn.toEpochDay();
+        long baseCents = Math.round(room.getPrice() * 100);
+        Rates rates = byType.get(room.getRoomType());
+        if (rates == null) {
+            return nights * baseCents;
+        }
+        int from = clamp(checkIn.toEpochDay() - rates.firstDay, rates.cents.length);
+        int to = clamp(checkOut.toEpochDay() - rates.firstDay, rates.cents.length);
+        long setNights = rates.rateNights[to] - rates.rateNights[from];
+        return rates.rateSums[to] - rates.rateSums[from] + (nights - setNights) * baseCents;
+    }
+
+    // Sets the nightly rate of a room type for from..to-1.
+    public void setRate(String roomType, LocalDate from, LocalDate to, double nightlyRate) {
+        update(roomType, from, to, Math.round(nightlyRate * 100));
+    }
+
+    // Returns from..to-1 to the rooms' base prices.
+    public void clearRate(String roomType, LocalDate from, LocalDate to) {
+        update(roomType, from, to, UNSET);
+    }
+
+    // A calendar quoting the same rates, unaffected by later updates to this one
+    public RateCalendar copy() {
+        RateCalendar copy = new RateCalendar();
+        copy.byType.putAll(byType);
+        return copy;
+    }
+
+    // For snapshots: each type's first day and its rate per night from there,
+    // UNSET where the base price applies
+    Set<String> roomTypes() {
+        return byType.keySet();
+    }
+
+    long firstDay(String roomType) {
+        return byType.get(roomType).firstDay;
+    }
+
+    long[] nightlyCents(String roomType) {
+        return byType.get(roomType).cents.clone();
+    }
+
+    void restore(String roomType, long firstDay, long[] cents) {
+        long[] rateSums = new long[cents.length + 1];
+        int[] rateNights = new int[cents.length + 1];
+        for (int i = 0; i < cents.length; i++) {
+            boolean set = cents[i] != UNSET;
+            rateSums[i + 1] = rateSums[i] + (set ? cents[i] : 0);
+            rateNights[i + 1] = rateNights[i] + (set ? 1 : 0);
+        }
+        byType.put(roomType, new Rates(firstDay, cents, rateSums, rateNights));
+    }
+
+    // Copies the arrays once, widening the window if needed, and recomputes
+    // the prefix sums only from the first changed night onwards.
+    private void update(String roomType, LocalDate from, LocalDate to, long cents) {
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        if (toDay <= fromDay) return;
+        byType.compute(roomType, (type, old) -> {
+            long firstDay = old == null ? fromDay : Math.min(old.firstDay, fromDay);
+            long endDay = old == null ? toDay : Math.max(old.firstDay + old.cents.length, toDay);
+            int length = Math.toIntExact(endDay - firstDay);
+            int shift = old == null ? 0 : (int) (old.firstDay - firstDay);
+
+            long[] rates = new long[length];
+            Arrays.fill(rates, UNSET);
+            if (old != null) {
+                System.arraycopy(old.cents, 0, rates, shift, old.cents.length);
+            }
+            int start = (int) (fromDay - firstDay);
+            Arrays.fill(rates, start, (int) (toDay - firstDay), cents);
+
+            long[] rateSums = new long[length + 1];
+            int[] rateNights = new int[length + 1];
+            int unchanged = 0;
+            if (old != null && shift == 0) {
+                // Prefix sums before the changed range carry over
+                unchanged = Math.min(start, old.cents.length);
+                System.arraycopy(old.rateSums, 0, rateSums, 0, unchanged + 1);
+                System.arraycopy(old.rateNights, 0, rateNights, 0, unchanged + 1);
+            }
+            for (int i = unchanged; i < length; i++) {
+                boolean set = rates[i] != UNSET;
+                rateSums[i + 1] = rateSums[i] + (set ? rates[i] : 0);
+                rateNights[i + 1] = rateNights[i] + (set ? 1 : 0);
+            }
+            return new Rates(firstDay, rates, rateSums, rateNights);
+        });
+    }
+
+    private static int clamp(long index, int length) {
+        return (int) Math.max(0, Math.min(length, index));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Restart time for a book of N reservations: the legacy ObjectInputStream
+// load of hotel_data.ser versus the binary snapshot plus a journal tail of
+// K events, and a full Hotel startup on top of the latter.
+//   java -Xmx6g RecoveryBenchmark [reservations] [tailEvents]
+public class RecoveryBenchmark {
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int tail = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        Path dir = Files.createTempDirectory("hotel-recovery");
+
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rooms.add(new StandardRoom("R" + i, 99.99, 2));
+        }
+        Map<String, User> users = new HashMap<>();
+        for (int i = 0; i < 50000; i++) {
+            users.put("user-" + i, new User("user-" + i, "Guest " + i, "user-" + i + "@example.com"));
+        }
+        ReservationIdGenerator ids = new ReservationIdGenerator();
+        LocalDate start = LocalDate.now().plusDays(1);
+        List<Reservation> reservations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = users.get("user-" + (i % users.size()));
+            LocalDate checkIn = start.plusDays(i / rooms.size() * 2);
+            Reservation res = Reservation.restore(ids.nextReservationId(), user, rooms.get(i % rooms.size()),
+                    checkIn, checkIn.plusDays(1), true, false, 99.99);
+            reservations.add(res);
+            user.addReservation(res);
+        }
+        HotelData data = new HotelData(rooms, reservations, users);
+
+        Path legacy = dir.resolve("hotel_data.ser");
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(
+                new FileOutputStream(legacy.toFile()), 1 << 16))) {
+            out.writeObject(data);
+        }
+        Path current = Files.createDirectories(dir.resolve("current"));
+        StorageManager storage = new StorageManager(current, FsyncPolicy.OS_MANAGED, 0);
+        storage.saveData(rooms, reservations, users);
+        CompletableFuture<Void> written = CompletableFuture.completedFuture(null);
+        for (int i = 0; i < tail; i++) {
+            User user = users.get("user-" + (i % users.size()));
+            LocalDate checkIn = start.plusDays(count / rooms.size() * 2 + 2 + i / rooms.size() * 2);
+            Reservation res = new Reservation(ids.nextReservationId(), user, rooms.get(i % rooms.size()),
+                    checkIn, checkIn.plusDays(1));
+            written = storage.append(JournalRecord.reservationConfirmed(res));
+        }
+        written.join();
+        data = null;
+        reservations = null;
+        users = null;
+
+        System.out.printf("%d reservations, %d journal events after the snapshot%n", count, tail);
+        System.out.printf("  %-36s %10s%n", "path", "best ms");
+        System.out.printf("  %-36s %10.0f%n", "ObjectInputStream (hotel_data.ser)", best(() -> {
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(
+                    new FileInputStream(legacy.toFile()), 1 << 16))) {
+                return in.readObject();
+            }
+        }));
+        System.out.printf("  %-36s %10.0f%n", "snapshot + journal tail", best(() ->
+                new StorageManager(current, FsyncPolicy.OS_MANAGED, 0).loadData()));
+        System.out.printf("  %-36s %10.0f%n", "Hotel ready (indexes rebuilt)", best(() ->
+                new Hotel("Recovery", new StorageManager(current, FsyncPolicy.OS_MANAGED, 0))));
+        System.exit(0);
+    }
+
+    private interface Load {
+        Object run() throws Exception;
+    }
+
+    private static double best(Load load) throws Exception {
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            System.gc();
+            long begin = System.nanoTime();
+            Object loaded = load.run();
+            best = Math.min(best, (System.nanoTime() - begin) / 1e6);
+            if (loaded == null) throw new IllegalStateException("load failed");
+        }
+        return best;
+    }
+}
\ No newline at end of file
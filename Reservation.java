@@ -1,14 +1,17 @@
+import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 
-public class Reservation {
+public class Reservation implements Serializable {
+    private static final long serialVersionUID = 6401684869259076541L;
+
     private String reservationId;
     private User user;
     private Room room;
     private LocalDate checkIn;
     private LocalDate checkOut;
-    private boolean isConfirmed;
-    private boolean isCancelled;
+    private volatile boolean isConfirmed;
+    private volatile boolean isCancelled;
     private double totalCost;
 
     public Reservation(String reservationId, User user, Room room, 
@@ -23,6 +26,24 @@ public class Reservation {
         this.totalCost = calculateCost();
     }
 
+    // Priced by the caller, e.g. from a RateCalendar quote
+    public Reservation(String reservationId, User user, Room room,
+                       LocalDate checkIn, LocalDate checkOut, double totalCost) {
+        this(reservationId, user, room, checkIn, checkOut);
+        this.totalCost = totalCost;
+    }
+
+    // Rebuilds a stored reservation without re-running confirm/cancel side effects
+    static Reservation restore(String reservationId, User user, Room room,
+                               LocalDate checkIn, LocalDate checkOut,
+                               boolean confirmed, boolean cancelled, double totalCost) {
+        Reservation res = new Reservation(reservationId, user, room, checkIn, checkOut);
+        res.isConfirmed = confirmed;
+        res.isCancelled = cancelled;
+        res.totalCost = totalCost;
+        return res;
+    }
+
     private double calculateCost() {
         long nights = ChronoUnit.DAYS.between(checkIn, checkOut);
         return nights * room.getPrice();
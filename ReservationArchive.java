@@ -0,0 +1,408 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Append-only cold storage for reservations that have left the working set.
+// A segment file starts with [int magic][short version] and each append
+// writes one block to the current segment:
+//   [int length][long crc][long maxId][int minCheckIn][int maxCheckOut][int filterWords][long[] user filter][payload]
+// The payload is a CompactReservationStore batch: room and user tables
+// followed by one column per field. The user filter is a Bloom filter of
+// about FILTER_BITS_PER_USER bits per guest in the block. Only block headers
+// are kept in memory, so lookups skip blocks whose date range or user filter
+// rules them out, and the highest reservation ID archived is known without
+// reading any payload.
+public class ReservationArchive {
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".arc";
+    private static final int MAGIC = 0x48544C41; // "HTLA"
+    private static final short VERSION = 1;
+    private static final int SEGMENT_HEADER_SIZE = 4 + 2;
+    private static final long SEGMENT_BYTES = 64L << 20; // roll to a new segment past this size
+    private static final int FILTER_BITS_PER_USER = 10;
+    private static final int FILTER_HASHES = 7; // about 1% false positives at 10 bits per user
+    private static final int HEADER_SIZE = 4 + 8 + 8 + 4 + 4 + 4; // before the filter words
+
+    private final Path directory;
+    private final List<Block> blocks = new CopyOnWriteArrayList<>();
+    private Path activeSegment;
+    private long activeLength;
+    private int segmentCount;
+    private boolean opened;
+
+    private static class Block {
+        final Path segment;
+        final long offset; // start of the payload
+        final int length;
+        final long checksum;
+        final long maxId;
+        final int minCheckIn;
+        final int maxCheckOut;
+        final long[] users;
+
+        Block(Path segment, long offset, int length, long checksum, long maxId, int minCheckIn, int maxCheckOut,
+              long[] users) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.checksum = checksum;
+            this.maxId = maxId;
+            this.minCheckIn = minCheckIn;
+            this.maxCheckOut = maxCheckOut;
+            this.users = users;
+        }
+    }
+
+    public ReservationArchive(Path directory) {
+        this.directory = directory;
+    }
+
+    // Writes the batch as one block and syncs it before returning.
+    public synchronized void append(CompactReservationStore batch) throws IOException {
+        if (batch.size() == 0) return;
+        open();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + batch.size() * 32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(batch.roomCount());
+        for (int i = 0; i < batch.roomCount(); i++) {
+            out.writeUTF(batch.getRoom(i).getRoomNumber());
+        }
+        long[] users = new long[Math.max(1, (batch.userCount() * FILTER_BITS_PER_USER + 63) / 64)];
+        out.writeInt(batch.userCount());
+        for (int i = 0; i < batch.userCount(); i++) {
+            String userId = batch.getUser(i).getUserId();
+            out.writeUTF(userId);
+            addToFilter(users, userId);
+        }
+        int count = batch.size();
+        int minCheckIn = Integer.MAX_VALUE;
+        int maxCheckOut = Integer.MIN_VALUE;
+        long maxId = -1;
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            out.writeLong(batch.getId(i));
+            maxId = Math.max(maxId, batch.getId(i));
+        }
+        for (int i = 0; i < count; i++) out.writeInt(batch.getRoomIndex(i));
+        for (int i = 0; i < count; i++) out.writeInt(batch.getUserIndex(i));
+        for (int i = 0; i < count; i++) {
+            out.writeInt(batch.getCheckInDay(i));
+            minCheckIn = Math.min(minCheckIn, batch.getCheckInDay(i));
+        }
+        for (int i = 0; i < count; i++) {
+            out.writeInt(batch.getCheckOutDay(i));
+            maxCheckOut = Math.max(maxCheckOut, batch.getCheckOutDay(i));
+        }
+        for (int i = 0; i < count; i++) out.writeByte(batch.getStatus(i));
+        for (int i = 0; i < count; i++) out.writeInt(batch.getCostCents(i));
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        int headerSize = HEADER_SIZE + users.length * 8;
+        boolean newSegment = activeSegment == null
+                || activeLength + headerSize + payload.length > SEGMENT_BYTES && activeLength > SEGMENT_HEADER_SIZE;
+        ByteBuffer frame = ByteBuffer.allocate((newSegment ? SEGMENT_HEADER_SIZE : 0) + headerSize + payload.length);
+        if (newSegment) {
+            activeSegment = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, ++segmentCount, SEGMENT_SUFFIX));
+            activeLength = 0;
+            frame.putInt(MAGIC).putShort(VERSION);
+        }
+        frame.putInt(payload.length).putLong(crc.getValue()).putLong(maxId).putInt(minCheckIn).putInt(maxCheckOut);
+        frame.putInt(users.length);
+        for (long word : users) frame.putLong(word);
+        frame.put(payload).flip();
+
+        int written = frame.remaining();
+        try (FileChannel channel = FileChannel.open(activeSegment, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+            channel.force(true);
+        }
+        blocks.add(new Block(activeSegment, activeLength + written - payload.length, payload.length,
+                crc.getValue(), maxId, minCheckIn, maxCheckOut, users));
+        activeLength += written;
+    }
+
+    // Archived stays of userId (or of everyone if null) overlapping from..to,
+    // either bound null for open-ended, in archive order.
+    public List<Reservation> find(String userId, LocalDate from, LocalDate to,
+                                  Function<String, Room> rooms, Function<String, User> users) {
+        if (!ensureOpen()) return new ArrayList<>();
+        int fromDay = from != null ? (int) from.toEpochDay() : Integer.MIN_VALUE;
+        int toDay = to != null ? (int) to.toEpochDay() : Integer.MAX_VALUE;
+
+        // Keyed by id: a crash between archiving and the next snapshot can archive a stay twice
+        Map<String, Reservation> found = new LinkedHashMap<>();
+        for (Block block : blocks) {
+            if (block.maxCheckOut < fromDay || block.minCheckIn > toDay) continue;
+            if (userId != null && !mayContain(block, userId)) continue;
+            readBlock(block, userId, fromDay, toDay, rooms, users, res -> found.put(res.getReservationId(), res));
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    // Up to limit archived stays of userId that match, in check-in order and
+    // starting after the given key (null for the first). Blocks are visited
+    // by their earliest check-in, which follows archive order closely, and
+    // the walk stops once no later block can hold a stay before the last one
+    // found, so a page reads about as many blocks as it spans.
+    List<Reservation> page(String userId, StayKey after, int limit, Predicate<Reservation> matches,
+                           Function<String, Room> rooms, Function<String, User> users) {
+        if (!ensureOpen()) return new ArrayList<>();
+        int fromDay = after != null ? (int) after.checkInDay : Integer.MIN_VALUE;
+        List<Block> candidates = new ArrayList<>();
+        for (Block block : blocks) {
+            if (block.maxCheckOut >= fromDay && mayContain(block, userId)) {
+                candidates.add(block);
+            }
+        }
+        Map<Block, Integer> archiveOrder = new HashMap<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            archiveOrder.put(candidates.get(i), i);
+        }
+        candidates.sort(Comparator.comparingInt(block -> block.minCheckIn));
+
+        // A stay archived twice keeps the copy from the later block
+        TreeMap<StayKey, Reservation> found = new TreeMap<>();
+        Map<StayKey, Integer> foundIn = new HashMap<>();
+        for (Block block : candidates) {
+            StayKey last = lastOfPage(found, limit, matches);
+            if (last != null && block.minCheckIn > last.checkInDay) break;
+            int order = archiveOrder.get(block);
+            readBlock(block, userId, fromDay, Integer.MAX_VALUE, rooms, users, res -> {
+                StayKey key = new StayKey(res);
+                if (after != null && key.compareTo(after) <= 0) return;
+                Integer previous = foundIn.get(key);
+                if (previous == null || previous < order) {
+                    found.put(key, res);
+                    foundIn.put(key, order);
+                }
+            });
+        }
+
+        List<Reservation> page = new ArrayList<>(Math.min(limit, found.size()));
+        for (Iterator<Reservation> it = found.values().iterator(); it.hasNext() && page.size() < limit; ) {
+            Reservation res = it.next();
+            if (matches.test(res)) page.add(res);
+        }
+        return page;
+    }
+
+    // Key of the limit-th matching stay found so far, or null if fewer match
+    private static StayKey lastOfPage(TreeMap<StayKey, Reservation> found, int limit, Predicate<Reservation> matches) {
+        if (found.size() < limit) return null;
+        int count = 0;
+        for (Map.Entry<StayKey, Reservation> entry : found.entrySet()) {
+            if (matches.test(entry.getValue()) && ++count == limit) return entry.getKey();
+        }
+        return null;
+    }
+
+    // The highest numeric reservation ID archived, or -1 if there is none
+    public long maxId() {
+        if (!ensureOpen()) return -1;
+        long max = -1;
+        for (Block block : blocks) {
+            max = Math.max(max, block.maxId);
+        }
+        return max;
+    }
+
+    public int blockCount() {
+        return blocks.size();
+    }
+
+    private synchronized boolean ensureOpen() {
+        try {
+            open();
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error opening archive: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void readBlock(Block block, String userId, int fromDay, int toDay,
+                           Function<String, Room> rooms, Function<String, User> users,
+                           Consumer<Reservation> found) {
+        try {
+            decodeBlock(block, userId, fromDay, toDay, rooms, users, found);
+        } catch (IOException e) {
+            System.err.println("Error reading archive " + block.segment.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    private void decodeBlock(Block block, String userId, int fromDay, int toDay,
+                             Function<String, Room> rooms, Function<String, User> users,
+                             Consumer<Reservation> found) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(block.length);
+        try (FileChannel channel = FileChannel.open(block.segment, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, block.offset + buffer.position()) < 0) {
+                    throw new IOException("truncated block");
+                }
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array());
+        if (crc.getValue() != block.checksum) throw new IOException("checksum mismatch");
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.array()));
+        Room[] roomTable = new Room[in.readInt()];
+        for (int i = 0; i < roomTable.length; i++) {
+            roomTable[i] = rooms.apply(in.readUTF());
+        }
+        User[] userTable = new User[in.readInt()];
+        int wanted = -1;
+        for (int i = 0; i < userTable.length; i++) {
+            String id = in.readUTF();
+            if (userId == null || id.equals(userId)) {
+                userTable[i] = users.apply(id);
+                if (userId != null) wanted = i;
+            }
+        }
+        if (userId != null && wanted < 0) return; // filter false positive
+
+        int count = in.readInt();
+        long[] ids = new long[count];
+        int[] roomIndexes = new int[count];
+        int[] userIndexes = new int[count];
+        int[] checkIns = new int[count];
+        int[] checkOuts = new int[count];
+        for (int i = 0; i < count; i++) ids[i] = in.readLong();
+        for (int i = 0; i < count; i++) roomIndexes[i] = in.readInt();
+        for (int i = 0; i < count; i++) userIndexes[i] = in.readInt();
+        for (int i = 0; i < count; i++) checkIns[i] = in.readInt();
+        for (int i = 0; i < count; i++) checkOuts[i] = in.readInt();
+        byte[] statuses = new byte[count];
+        in.readFully(statuses);
+        for (int i = 0; i < count; i++) {
+            int cents = in.readInt();
+            if (wanted >= 0 && userIndexes[i] != wanted) continue;
+            if (checkOuts[i] < fromDay || checkIns[i] > toDay) continue;
+            Room room = roomTable[roomIndexes[i]];
+            User user = userTable[userIndexes[i]];
+            if (room == null || user == null) continue;
+            String id = ReservationIdGenerator.format(ids[i]);
+            found.accept(Reservation.restore(id, user, room,
+                    LocalDate.ofEpochDay(checkIns[i]), LocalDate.ofEpochDay(checkOuts[i]),
+                    statuses[i] != CompactReservationStore.PENDING,
+                    statuses[i] == CompactReservationStore.CANCELLED, cents / 100.0));
+        }
+    }
+
+    // Loads block headers from existing segments and drops a torn final block.
+    private void open() throws IOException {
+        if (opened) return;
+        opened = true;
+        if (!Files.isDirectory(directory)) {
+            Files.createDirectories(directory);
+            return;
+        }
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted().collect(Collectors.toList());
+        }
+        for (Path segment : segments) {
+            activeSegment = segment;
+            activeLength = scanSegment(segment);
+            segmentCount++;
+        }
+    }
+
+    // Loads the segment's block headers, drops a torn final block and
+    // returns the segment's valid length.
+    private long scanSegment(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            ByteBuffer magic = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+            channel.read(magic, 0);
+            magic.flip();
+            if (magic.remaining() < SEGMENT_HEADER_SIZE || magic.getInt() != MAGIC || magic.getShort() != VERSION) {
+                throw new IOException("not an archive segment: " + segment.getFileName());
+            }
+            long position = SEGMENT_HEADER_SIZE;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (position + HEADER_SIZE <= size) {
+                header.clear();
+                channel.read(header, position);
+                header.flip();
+                int length = header.getInt();
+                long checksum = header.getLong();
+                long maxId = header.getLong();
+                int minCheckIn = header.getInt();
+                int maxCheckOut = header.getInt();
+                int filterWords = header.getInt();
+                int headerSize = HEADER_SIZE + filterWords * 8;
+                if (length < 0 || filterWords < 0 || position + headerSize + (long) length > size) break;
+                long[] users = new long[filterWords];
+                ByteBuffer filter = ByteBuffer.allocate(filterWords * 8);
+                channel.read(filter, position + HEADER_SIZE);
+                filter.flip();
+                for (int i = 0; i < filterWords; i++) users[i] = filter.getLong();
+                blocks.add(new Block(segment, position + headerSize, length, checksum,
+                        maxId, minCheckIn, maxCheckOut, users));
+                position += headerSize + length;
+            }
+            if (position < size) {
+                channel.truncate(position);
+            }
+            return position;
+        }
+    }
+
+    // Bloom filter over double hashing of one 64-bit hash of the user ID
+    private static void addToFilter(long[] filter, String userId) {
+        long h = hash(userId);
+        int bits = filter.length * 64;
+        for (int i = 0; i < FILTER_HASHES; i++) {
+            int bit = Math.floorMod((int) h + i * (int) (h >>> 32), bits);
+            filter[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    private static boolean mayContain(Block block, String userId) {
+        long h = hash(userId);
+        int bits = block.users.length * 64;
+        for (int i = 0; i < FILTER_HASHES; i++) {
+            int bit = Math.floorMod((int) h + i * (int) (h >>> 32), bits);
+            if ((block.users[bit >>> 6] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    private static long hash(String userId) {
+        long h = userId.hashCode() * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        h *= 0xD6E8FEB86659FD93L;
+        return h ^ (h >>> 32);
+    }
+}
\ No newline at end of file
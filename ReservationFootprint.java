@@ -0,0 +1,65 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Compares retained heap of N reservations held as Reservation objects
+// against the same bookings in a CompactReservationStore.
+//   java -Xmx8g ReservationFootprint 1000000 10000000
+public class ReservationFootprint {
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            args = new String[] {"1000000"};
+        }
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rooms.add(new StandardRoom("R" + i, 99.99, 2));
+        }
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            users.add(new User("user-" + i, "Guest " + i, "user-" + i + "@example.com"));
+        }
+        ReservationIdGenerator ids = new ReservationIdGenerator();
+        LocalDate start = LocalDate.of(2030, 1, 1);
+
+        System.out.printf("%12s %16s %16s %10s%n", "reservations", "objects (MB)", "compact (MB)", "ratio");
+        for (String arg : args) {
+            int count = Integer.parseInt(arg);
+
+            long before = usedHeap();
+            List<Reservation> objects = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                objects.add(newReservation(ids, users, rooms, start, i));
+            }
+            long objectBytes = usedHeap() - before;
+            if (objects.size() != count) throw new IllegalStateException();
+            objects = null;
+
+            before = usedHeap();
+            CompactReservationStore store = new CompactReservationStore();
+            for (int i = 0; i < count; i++) {
+                store.add(newReservation(ids, users, rooms, start, i));
+            }
+            long storeBytes = usedHeap() - before;
+            if (store.size() != count) throw new IllegalStateException();
+
+            System.out.printf("%12d %16.1f %16.1f %9.1fx%n", count,
+                    objectBytes / 1048576.0, storeBytes / 1048576.0, (double) objectBytes / storeBytes);
+            store = null;
+        }
+    }
+
+    private static Reservation newReservation(ReservationIdGenerator ids, List<User> users, List<Room> rooms,
+                                              LocalDate start, int i) {
+        LocalDate checkIn = start.plusDays(i % 3650);
+        return new Reservation(ids.nextReservationId(), users.get(i % users.size()),
+                rooms.get(i % rooms.size()), checkIn, checkIn.plusDays(1 + i % 7));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,81 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+// Time-ordered 64-bit reservation IDs: 41 bits of milliseconds since EPOCH,
+// 10 bits of node id and a 12-bit per-millisecond sequence. Generation is a
+// single CAS loop, so it stays unique across threads without locking; if the
+// clock stalls or steps back, IDs keep counting forward from the last one.
+public class ReservationIdGenerator {
+    public static final String PREFIX = "RES-";
+    private static final long EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIME_SHIFT = NODE_BITS + SEQUENCE_BITS;
+
+    private final long node;
+    private final AtomicLong last = new AtomicLong();
+
+    public ReservationIdGenerator() {
+        this(Long.getLong("hotel.nodeId", 0));
+    }
+
+    public ReservationIdGenerator(long node) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE);
+        }
+        this.node = node;
+    }
+
+    public long nextId() {
+        while (true) {
+            long previous = last.get();
+            long now = System.currentTimeMillis() - EPOCH;
+            long previousTime = previous >>> TIME_SHIFT;
+            long next;
+            if (now > previousTime) {
+                next = compose(now, 0);
+            } else if ((previous & MAX_SEQUENCE) < MAX_SEQUENCE) {
+                next = compose(previousTime, (previous & MAX_SEQUENCE) + 1);
+            } else {
+                next = compose(previousTime + 1, 0); // sequence exhausted, borrow the next millisecond
+            }
+            if (last.compareAndSet(previous, next)) {
+                return next;
+            }
+        }
+    }
+
+    public String nextReservationId() {
+        return format(nextId());
+    }
+
+    // Ensures IDs issued after a restart sort after every ID already stored.
+    public void observe(String reservationId) {
+        observe(parse(reservationId));
+    }
+
+    public void observe(long id) {
+        if (id >= 0) {
+            last.accumulateAndGet(id, Math::max);
+        }
+    }
+
+    public static String format(long id) {
+        return PREFIX + id;
+    }
+
+    // Returns the numeric form of a reservation ID, or -1 if it has none.
+    public static long parse(String reservationId) {
+        if (reservationId == null || !reservationId.startsWith(PREFIX)) return -1;
+        try {
+            return Long.parseLong(reservationId.substring(PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private long compose(long time, long sequence) {
+        return (time << TIME_SHIFT) | (node << SEQUENCE_BITS) | sequence;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,19 @@
+import java.util.Collections;
+import java.util.List;
+
+// One page of a guest's reservations in check-in order. The cursor is opaque
+// to callers and is null on the last page.
+public class ReservationPage {
+    private final List<Reservation> reservations;
+    private final String nextCursor;
+
+    ReservationPage(List<Reservation> reservations, String nextCursor) {
+        this.reservations = Collections.unmodifiableList(reservations);
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+    public List<Reservation> getReservations() { return reservations; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean hasMore() { return nextCursor != null; }
+}
\ No newline at end of file
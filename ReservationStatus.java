@@ -0,0 +1,14 @@
+// Filter for paging through a guest's reservations
+public enum ReservationStatus {
+    ACTIVE,
+    CANCELLED,
+    ALL;
+
+    public boolean matches(Reservation res) {
+        switch (this) {
+            case ACTIVE: return !res.isCancelled();
+            case CANCELLED: return res.isCancelled();
+            default: return true;
+        }
+    }
+}
\ No newline at end of file
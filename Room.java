@@ -1,8 +1,12 @@
-public abstract class Room {
+import java.io.Serializable;
+
+public abstract class Room implements Serializable {
+    private static final long serialVersionUID = 3864180844421845884L;
+
     protected String roomNumber;
     protected double price;
     protected int capacity;
-    protected boolean isAvailable;
+    protected volatile boolean isAvailable;
 
     public Room(String roomNumber, double price, int capacity) {
         this.roomNumber = roomNumber;
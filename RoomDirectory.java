@@ -0,0 +1,51 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Rooms indexed by number and, per room type, bucketed by capacity so that
+// a search only visits rooms large enough for the party.
+public class RoomDirectory {
+    private final Map<String, Room> byNumber = new ConcurrentHashMap<>();
+    // room type -> capacity -> rooms
+    private final Map<String, NavigableMap<Integer, List<Room>>> byType = new ConcurrentSkipListMap<>();
+
+    // Returns false, leaving the directory unchanged, if the number is taken
+    public boolean add(Room room) {
+        if (byNumber.putIfAbsent(room.getRoomNumber(), room) != null) {
+            return false;
+        }
+        byType.computeIfAbsent(room.getRoomType(), t -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(room.getCapacity(), c -> new CopyOnWriteArrayList<>())
+                .add(room);
+        return true;
+    }
+
+    public Room get(String roomNumber) {
+        return byNumber.get(roomNumber);
+    }
+
+    public List<Room> withCapacity(int minCapacity) {
+        List<Room> rooms = new ArrayList<>();
+        for (NavigableMap<Integer, List<Room>> buckets : byType.values()) {
+            for (List<Room> bucket : buckets.tailMap(minCapacity, true).values()) {
+                rooms.addAll(bucket);
+            }
+        }
+        return rooms;
+    }
+
+    public List<Room> ofType(String roomType, int minCapacity) {
+        NavigableMap<Integer, List<Room>> buckets = byType.get(roomType);
+        List<Room> rooms = new ArrayList<>();
+        if (buckets != null) {
+            for (List<Room> bucket : buckets.tailMap(minCapacity, true).values()) {
+                rooms.addAll(bucket);
+            }
+        }
+        return rooms;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,177 @@
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Rooms booked per night for each room type, in a segment tree with range
+// add and range max over a fixed window of days, so the fewest rooms left on
+// any night of a stay is found in O(log days). Nights are check-in through
+// check-out inclusive, matching Hotel's overlap rule; nights outside the
+// window are not tracked.
+//
+// A second tree counts the rooms out of sale on each night: those with a
+// stay that night plus those whose available flag is cleared, which cannot
+// be booked on any night. Sell limits are checked against stays alone.
+public class RoomInventory {
+    private static final long FIRST_DAY = LocalDate.of(2000, 1, 1).toEpochDay();
+    private static final int DAYS = 1 << 16; // about 179 years
+    private static final int NO_LIMIT = -1;
+
+    private final Map<String, TypeInventory> byType = new ConcurrentHashMap<>();
+
+    // max[node] = highest count in the node's range, including add[node]
+    private static class NightCounts {
+        private final int[] max = new int[2 * DAYS];
+        private final int[] add = new int[2 * DAYS];
+
+        void update(int from, int to, int delta) {
+            update(1, 0, DAYS - 1, from, to, delta);
+        }
+
+        int max(int from, int to) {
+            return query(1, 0, DAYS - 1, from, to);
+        }
+
+        private void update(int node, int lo, int hi, int from, int to, int delta) {
+            if (from <= lo && hi <= to) {
+                max[node] += delta;
+                add[node] += delta;
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            if (from <= mid) update(2 * node, lo, mid, from, to, delta);
+            if (to > mid) update(2 * node + 1, mid + 1, hi, from, to, delta);
+            max[node] = Math.max(max[2 * node], max[2 * node + 1]) + add[node];
+        }
+
+        private int query(int node, int lo, int hi, int from, int to) {
+            if (from <= lo && hi <= to) {
+                return max[node];
+            }
+            int mid = (lo + hi) >>> 1;
+            int best = Integer.MIN_VALUE;
+            if (from <= mid) best = query(2 * node, lo, mid, from, to);
+            if (to > mid) best = Math.max(best, query(2 * node + 1, mid + 1, hi, from, to));
+            return best + add[node];
+        }
+    }
+
+    private static class TypeInventory {
+        private final NightCounts booked = new NightCounts();
+        private final NightCounts outOfSale = new NightCounts();
+        private final Set<Room> unavailable = new HashSet<>();
+        private int rooms;
+        private int sellLimit = NO_LIMIT;
+
+        synchronized boolean tryBook(Room room, int from, int to) {
+            int limit = sellLimit == NO_LIMIT ? Integer.MAX_VALUE : sellLimit;
+            if (booked.max(from, to) >= limit) return false;
+            booked.update(from, to, 1);
+            if (!unavailable.contains(room)) outOfSale.update(from, to, 1);
+            return true;
+        }
+
+        synchronized void release(Room room, int from, int to) {
+            booked.update(from, to, -1);
+            if (!unavailable.contains(room)) outOfSale.update(from, to, -1);
+        }
+
+        // An unavailable room is out of sale on every night, counted once
+        // however many of its own stays fall on that night.
+        synchronized void setAvailable(Room room, boolean available, Supplier<List<long[]>> occupied) {
+            if (available != unavailable.contains(room)) return;
+            if (available) {
+                unavailable.remove(room);
+            } else {
+                unavailable.add(room);
+            }
+            int delta = available ? 1 : -1;
+            outOfSale.update(0, DAYS - 1, -delta);
+            for (long[] days : occupied.get()) {
+                int[] range = range(days[0], days[1]);
+                if (range != null) outOfSale.update(range[0], range[1], delta);
+            }
+        }
+
+        synchronized int available(int from, int to) {
+            int free = rooms - outOfSale.max(from, to);
+            if (sellLimit == NO_LIMIT) return Math.max(0, free);
+            int sellable = sellLimit - booked.max(from, to);
+            return Math.max(0, sellLimit > rooms ? sellable : Math.min(sellable, free));
+        }
+
+        synchronized int capacity() {
+            int free = rooms - unavailable.size();
+            return sellLimit == NO_LIMIT ? free : sellLimit > rooms ? sellLimit : Math.min(sellLimit, free);
+        }
+    }
+
+    public void addRoom(String roomType) {
+        TypeInventory inventory = inventoryFor(roomType);
+        synchronized (inventory) {
+            inventory.rooms++;
+        }
+    }
+
+    // Counts a stay against its room type unless that would take any of its
+    // nights past the type's sell limit.
+    public boolean tryBook(Reservation res) {
+        int[] range = range(res.getCheckIn(), res.getCheckOut());
+        return range == null || inventoryFor(res.getRoom().getRoomType()).tryBook(res.getRoom(), range[0], range[1]);
+    }
+
+    public void release(Reservation res) {
+        int[] range = range(res.getCheckIn(), res.getCheckOut());
+        if (range != null) {
+            inventoryFor(res.getRoom().getRoomType()).release(res.getRoom(), range[0], range[1]);
+        }
+    }
+
+    // Follows a change to the room's available flag. occupied lists the
+    // {fromDay, toDay} epoch-day runs of the stays counted for the room, and
+    // is only read when the flag actually changed.
+    public void setAvailable(Room room, boolean available, Supplier<List<long[]>> occupied) {
+        inventoryFor(room.getRoomType()).setAvailable(room, available, occupied);
+    }
+
+    // Rooms of the type still sellable on every night of the stay
+    public int countAvailable(String roomType, LocalDate checkIn, LocalDate checkOut) {
+        TypeInventory inventory = byType.get(roomType);
+        if (inventory == null) return 0;
+        int[] range = range(checkIn, checkOut);
+        return range == null ? inventory.capacity() : inventory.available(range[0], range[1]);
+    }
+
+    // Caps how many stays of a type may overlap on any night. A cap below the
+    // room count holds rooms back. A cap above it is advertised by
+    // countAvailable as overbooking headroom, though each booking still
+    // needs a free room of its own.
+    public void setSellLimit(String roomType, int limit) {
+        TypeInventory inventory = inventoryFor(roomType);
+        synchronized (inventory) {
+            inventory.sellLimit = limit;
+        }
+    }
+
+    public void clearSellLimit(String roomType) {
+        setSellLimit(roomType, NO_LIMIT);
+    }
+
+    private TypeInventory inventoryFor(String roomType) {
+        return byType.computeIfAbsent(roomType, t -> new TypeInventory());
+    }
+
+    // Window indexes of check-in and check-out, clipped; null if the stay is outside the window
+    private static int[] range(LocalDate checkIn, LocalDate checkOut) {
+        return range(checkIn.toEpochDay(), checkOut.toEpochDay());
+    }
+
+    private static int[] range(long fromDay, long toDay) {
+        long from = Math.max(fromDay - FIRST_DAY, 0);
+        long to = Math.min(toDay - FIRST_DAY, DAYS - 1);
+        return from > to ? null : new int[] {(int) from, (int) to};
+    }
+}
\ No newline at end of file
@@ -0,0 +1,19 @@
+// An available room priced for a specific stay
+public class RoomQuote {
+    private final Room room;
+    private final double totalCost;
+
+    public RoomQuote(Room room, double totalCost) {
+        this.room = room;
+        this.totalCost = totalCost;
+    }
+
+    // Getters
+    public Room getRoom() { return room; }
+    public double getTotalCost() { return totalCost; }
+
+    @Override
+    public String toString() {
+        return String.format("%s - $%.2f total", room, totalCost);
+    }
+}
\ No newline at end of file
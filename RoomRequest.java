@@ -0,0 +1,27 @@
+// One room within a group booking: either a specific room number, or any
+// room of a type that sleeps at least minCapacity guests.
+public class RoomRequest {
+    private final String roomNumber;
+    private final String roomType;
+    private final int minCapacity;
+
+    private RoomRequest(String roomNumber, String roomType, int minCapacity) {
+        this.roomNumber = roomNumber;
+        this.roomType = roomType;
+        this.minCapacity = minCapacity;
+    }
+
+    public static RoomRequest forRoom(String roomNumber) {
+        return new RoomRequest(roomNumber, null, 0);
+    }
+
+    public static RoomRequest ofType(String roomType, int minCapacity) {
+        return new RoomRequest(null, roomType, minCapacity);
+    }
+
+    // Getters
+    public String getRoomNumber() { return roomNumber; }
+    public String getRoomType() { return roomType; }
+    public int getMinCapacity() { return minCapacity; }
+    public boolean isSpecificRoom() { return roomNumber != null; }
+}
\ No newline at end of file
@@ -0,0 +1,31 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Local stand-in for a card gateway: settles each charge after a fixed
+// latency, declines a configurable fraction of them and refunds after the
+// same latency.
+public class SimulatedPaymentGateway implements PaymentGateway {
+    private static final ExecutorService SETTLEMENT = TaskExecutors.newPerTaskExecutor("payment-settlement");
+
+    private final Executor delayed;
+    private final double failureRate;
+
+    public SimulatedPaymentGateway(long latencyMillis, double failureRate) {
+        this.delayed = CompletableFuture.delayedExecutor(latencyMillis, TimeUnit.MILLISECONDS, SETTLEMENT);
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> charge(double amount) {
+        return CompletableFuture.supplyAsync(
+                () -> ThreadLocalRandom.current().nextDouble() >= failureRate, delayed);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> refund(double amount) {
+        return CompletableFuture.supplyAsync(() -> true, delayed);
+    }
+}
\ No newline at end of file
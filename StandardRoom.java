@@ -1,4 +1,6 @@
 public class StandardRoom extends Room {
+    private static final long serialVersionUID = 1894571506993305638L;
+
     public StandardRoom(String roomNumber, double price, int capacity) {
         super(roomNumber, price, capacity);
     }
@@ -0,0 +1,55 @@
+import java.time.LocalDate;
+
+// Orders stays by check-in date, then reservation ID. Its string form is the
+// cursor handed out with a ReservationPage.
+class StayKey implements Comparable<StayKey> {
+    final long checkInDay;
+    final String reservationId;
+
+    StayKey(long checkInDay, String reservationId) {
+        this.checkInDay = checkInDay;
+        this.reservationId = reservationId;
+    }
+
+    StayKey(Reservation res) {
+        this(res.getCheckIn().toEpochDay(), res.getReservationId());
+    }
+
+    static StayKey parse(String cursor) {
+        int separator = cursor.indexOf(':');
+        try {
+            return new StayKey(Long.parseLong(cursor.substring(0, separator)), cursor.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    // The key a page starts after: the cursor's, or the day before fromDate's
+    // first stay if that is later. Null to start at the first stay.
+    static StayKey after(LocalDate fromDate, String cursor) {
+        StayKey after = cursor != null ? parse(cursor) : null;
+        StayKey from = fromDate != null ? new StayKey(fromDate.toEpochDay(), "") : null; // IDs are never empty
+        return after == null || (from != null && after.compareTo(from) < 0) ? from : after;
+    }
+
+    @Override
+    public int compareTo(StayKey other) {
+        int c = Long.compare(checkInDay, other.checkInDay);
+        return c != 0 ? c : reservationId.compareTo(other.reservationId);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof StayKey && compareTo((StayKey) o) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(checkInDay) * 31 + reservationId.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return checkInDay + ":" + reservationId;
+    }
+}
\ No newline at end of file
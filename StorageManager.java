@@ -1,31 +1,333 @@
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.CRC32;
 
+// Persists a hotel as a binary checkpoint snapshot plus an append-only journal of the
+// mutations made since. Journal entries are framed as [length][crc][payload],
+// so a torn write only loses the entry that was being written. Appends go
+// through a GroupCommitLog, which batches concurrent writers into one write.
+//
+// A checkpoint has two phases. beginCheckpoint runs while the caller holds
+// writers off: it moves the journal aside and notes how long the lists are.
+// completeCheckpoint then copies that much and writes the snapshot while
+// writers carry on in a fresh journal, and deletes the old journal once the
+// snapshot is in place.
+// Until then recovery replays both journals, skipping anything the snapshot
+// already covers.
+//
+// Guest profiles are not in the snapshot: a checkpoint writes the users
+// registered since the last one to the UserStore's segments first, and the
+// snapshot only records the users its stays point at.
 public class StorageManager {
-    private static final String DATA_FILE = "hotel_data.ser";
+    private static final String DATA_FILE = "hotel_data.snap";
+    private static final String LEGACY_DATA_FILE = "hotel_data.ser";
+    private static final String JOURNAL_FILE = "hotel_data.journal";
+    private static final String ROTATED_JOURNAL_FILE = "hotel_data.journal.old";
+    private static final String ARCHIVE_DIR = "archive";
+    private static final String USERS_DIR = "users";
+    private static final int CHECKPOINT_INTERVAL = 1000; // journal entries between checkpoints
 
-    public static void saveData(List<Room> rooms, List<Reservation> reservations, 
-                              Map<String, User> users) {
-        HotelData data = new HotelData(rooms, reservations, users);
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(DATA_FILE))) {
-            oos.writeObject(data);
+    private final Path dataFile;
+    private final Path legacyDataFile;
+    private final Path journalFile;
+    private final Path rotatedJournalFile;
+    private final GroupCommitLog journal;
+    private final ReservationArchive archive;
+    private final UserStore users;
+    private long lastSequence;
+    private volatile int entriesSinceCheckpoint; // written under this monitor, read without it
+
+    public StorageManager() {
+        this(Paths.get("."));
+    }
+
+    public StorageManager(Path directory) {
+        this(directory, FsyncPolicy.EVERY_COMMIT, 0);
+    }
+
+    public StorageManager(Path directory, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) {
+        this.dataFile = directory.resolve(DATA_FILE);
+        this.legacyDataFile = directory.resolve(LEGACY_DATA_FILE);
+        this.journalFile = directory.resolve(JOURNAL_FILE);
+        this.rotatedJournalFile = directory.resolve(ROTATED_JOURNAL_FILE);
+        this.journal = new GroupCommitLog(journalFile, fsyncPolicy, fsyncIntervalMillis);
+        this.archive = new ReservationArchive(directory.resolve(ARCHIVE_DIR));
+        this.users = new UserStore(directory.resolve(USERS_DIR));
+    }
+
+    // Registers users and writes a full snapshot, starting a fresh journal.
+    public void saveData(List<Room> rooms, List<Reservation> reservations,
+                         Map<String, User> users) {
+        saveData(rooms, reservations, users, new RateCalendar());
+    }
+
+    public void saveData(List<Room> rooms, List<Reservation> reservations,
+                         Map<String, User> users, RateCalendar rates) {
+        this.users.registerAll(users.values());
+        completeCheckpoint(beginCheckpoint(rooms, reservations, rates));
+    }
+
+    // Call with mutations excluded. Only rotates the journal and records where
+    // the snapshot stands; the lists may only be appended to until
+    // completeCheckpoint returns. Returns null if the journal could not be rotated.
+    public synchronized Checkpoint beginCheckpoint(List<Room> rooms, List<Reservation> reservations,
+                                                   RateCalendar rates) {
+        try {
+            journal.awaitFlushed();
+        } catch (CompletionException e) {
+            Metrics.SAVE.recordError();
+            System.err.println("Error flushing journal: " + e.getCause().getMessage());
+            return null;
+        }
+        // If the last checkpoint failed before its snapshot landed, the old
+        // journal is still needed: keep appending to the current one instead,
+        // and let this snapshot cover both
+        if (!Files.exists(rotatedJournalFile)) {
+            try {
+                journal.rotate(rotatedJournalFile);
+            } catch (IOException e) {
+                Metrics.SAVE.recordError();
+                System.err.println("Error rotating journal: " + e.getMessage());
+                return null;
+            }
+        }
+        entriesSinceCheckpoint = 0;
+        users.capturePending();
+        return new Checkpoint(rooms, rooms.size(), reservations, reservations.size(), rates.copy(), lastSequence);
+    }
+
+    // Writes the captured snapshot; safe to run while new entries are appended.
+    public void completeCheckpoint(Checkpoint checkpoint) {
+        if (checkpoint == null) return;
+        if (persist(checkpoint.capture(users))) {
+            try {
+                Files.deleteIfExists(rotatedJournalFile);
+            } catch (IOException e) {
+                System.err.println("Error removing old journal: " + e.getMessage());
+            }
+        }
+    }
+
+    // Users go to disk before the snapshot that stops replaying their registration
+    private boolean persist(HotelData data) {
+        return users.flush() && writeSnapshot(data);
+    }
+
+    private boolean writeSnapshot(HotelData data) {
+        long start = System.nanoTime();
+        Path tmp = dataFile.resolveSibling(DATA_FILE + ".tmp");
+        try {
+            BinarySnapshot.write(data, tmp);
+            Files.move(tmp, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
         } catch (IOException e) {
+            Metrics.SAVE.recordError();
             System.err.println("Error saving data: " + e.getMessage());
+            return false;
+        } finally {
+            Metrics.SAVE.record(start);
         }
     }
 
-    public static HotelData loadData() {
-        File file = new File(DATA_FILE);
-        if (!file.exists()) {
-            return null;
+    // Queues one record; the future completes once it is durable under the fsync policy.
+    public synchronized CompletableFuture<Void> append(JournalRecord record) {
+        record.setSequence(++lastSequence);
+        entriesSinceCheckpoint++;
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            record.write(new DataOutputStream(payload));
+            CRC32 crc = new CRC32();
+            crc.update(payload.toByteArray());
+
+            ByteArrayOutputStream frame = new ByteArrayOutputStream(12 + payload.size());
+            DataOutputStream out = new DataOutputStream(frame);
+            out.writeInt(payload.size());
+            out.writeLong(crc.getValue());
+            payload.writeTo(out);
+            return journal.submit(frame.toByteArray());
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
         }
+    }
 
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(DATA_FILE))) {
-            return (HotelData) ois.readObject();
-        } catch (IOException | ClassNotFoundException e) {
-            System.err.println("Error loading data: " + e.getMessage());
-            return null;
+    public ReservationArchive getArchive() {
+        return archive;
+    }
+
+    public UserStore getUsers() {
+        return users;
+    }
+
+    public boolean isCheckpointDue() {
+        return entriesSinceCheckpoint >= CHECKPOINT_INTERVAL;
+    }
+
+    // Returns null only when there is no hotel data at all. Data that exists
+    // but cannot be read stops startup instead: starting fresh would
+    // checkpoint over it.
+    public HotelData loadData() {
+        if (!dataFile.toFile().exists()) {
+            if (legacyDataFile.toFile().exists()) {
+                return migrateLegacyData();
+            }
+            if (!hasEntries(journalFile) && !hasEntries(rotatedJournalFile)) {
+                return null;
+            }
+            // The first checkpoint never landed, so the journal holds everything
+            HotelData data = new HotelData(new ArrayList<>(), new ArrayList<>(), new HashMap<>());
+            replayJournals(data);
+            return data;
+        }
+
+        long start = System.nanoTime();
+        HotelData data;
+        try {
+            data = BinarySnapshot.read(dataFile);
+        } catch (IOException | RuntimeException e) {
+            Metrics.LOAD.recordError();
+            throw new IllegalStateException("Cannot read " + dataFile + "; restore or move it aside before starting", e);
+        }
+        lastSequence = data.getJournalSequence();
+        users.adopt(data.getUsers().values());
+        replayJournals(data);
+        Metrics.LOAD.record(start);
+        return data;
+    }
+
+    // One-time conversion of a serialized hotel_data.ser into the binary snapshot
+    private HotelData migrateLegacyData() {
+        HotelData data;
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(
+                new FileInputStream(legacyDataFile.toFile())))) {
+            data = (HotelData) ois.readObject();
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            Metrics.LOAD.recordError();
+            throw new IllegalStateException("Cannot migrate " + legacyDataFile + "; restore or move it aside before starting", e);
+        }
+        lastSequence = data.getJournalSequence();
+        users.adopt(data.getUsers().values());
+        replayJournals(data);
+        saveData(data.getRooms(), data.getReservations(), data.getUsers(), data.getRates());
+        try {
+            Files.move(legacyDataFile, legacyDataFile.resolveSibling(LEGACY_DATA_FILE + ".migrated"),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("Error renaming migrated data: " + e.getMessage());
+        }
+        return data;
+    }
+
+    private static boolean hasEntries(Path file) {
+        try {
+            return Files.exists(file) && Files.size(file) > 0;
+        } catch (IOException e) {
+            return true; // unreadable is not the same as absent
+        }
+    }
+
+    // Replays entries newer than the snapshot, from a journal set aside by an
+    // unfinished checkpoint first and then the current one.
+    private void replayJournals(HotelData data) {
+        Map<String, Room> roomsByNumber = new HashMap<>();
+        for (Room room : data.getRooms()) {
+            roomsByNumber.put(room.getRoomNumber(), room);
+        }
+        Map<String, Reservation> reservationsById = new HashMap<>();
+        for (Reservation res : data.getReservations()) {
+            reservationsById.put(res.getReservationId(), res);
+        }
+        replayJournal(rotatedJournalFile.toFile(), data, roomsByNumber, reservationsById);
+        replayJournal(journalFile.toFile(), data, roomsByNumber, reservationsById);
+    }
+
+    // Only a torn final entry is dropped. A committed entry that fails its
+    // checksum or cannot be applied stops recovery and leaves the file as is.
+    private void replayJournal(File file, HotelData data, Map<String, Room> roomsByNumber,
+                               Map<String, Reservation> reservationsById) {
+        if (!file.exists()) return;
+
+        long fileLength = file.length();
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int length = in.readInt();
+                long checksum = in.readLong();
+                long end = validLength + 12 + length;
+                if (length < 0 || end > fileLength) break; // torn final entry
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if (crc.getValue() != checksum) {
+                    if (end == fileLength) break; // torn final entry
+                    throw new IllegalStateException("Corrupt journal entry at offset " + validLength + " in " + file);
+                }
+
+                try {
+                    JournalRecord record = JournalRecord.read(new DataInputStream(new ByteArrayInputStream(payload)));
+                    if (record.getSequence() > lastSequence) {
+                        record.applyTo(data, roomsByNumber, reservationsById, users);
+                        lastSequence = record.getSequence();
+                        entriesSinceCheckpoint++;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    throw new IllegalStateException("Cannot replay journal entry at offset " + validLength
+                            + " in " + file + ": " + e.getMessage(), e);
+                }
+                validLength = end;
+            }
+        } catch (EOFException e) {
+            // End of journal or a torn final entry
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read journal " + file, e);
+        }
+
+        // Drop the torn tail so new entries are appended after the last good one
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (raf.length() > validLength) {
+                raf.setLength(validLength);
+            }
+        } catch (IOException e) {
+            System.err.println("Error truncating journal: " + e.getMessage());
+        }
+    }
+
+    // Where a checkpoint began: the journal sequence it covers and how much of
+    // each list existed then. Anything appended later is in the new journal.
+    public static class Checkpoint {
+        private final List<Room> rooms;
+        private final int roomCount;
+        private final List<Reservation> reservations;
+        private final int reservationCount;
+        private final RateCalendar rates;
+        private final long sequence;
+
+        private Checkpoint(List<Room> rooms, int roomCount, List<Reservation> reservations,
+                           int reservationCount, RateCalendar rates, long sequence) {
+            this.rooms = rooms;
+            this.roomCount = roomCount;
+            this.reservations = reservations;
+            this.reservationCount = reservationCount;
+            this.rates = rates;
+            this.sequence = sequence;
+        }
+
+        private HotelData capture(UserStore users) {
+            List<Reservation> captured = new ArrayList<>(reservations.subList(0, reservationCount));
+            HotelData data = new HotelData(new ArrayList<>(rooms.subList(0, roomCount)), captured,
+                    users.registeredAmong(captured));
+            data.setJournalSequence(sequence);
+            data.setRates(rates);
+            return data;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Fixed pool of locks shared by hashing keys onto stripes.
+public class StripedLocks {
+    private final ReentrantLock[] stripes;
+
+    public StripedLocks(int count) {
+        stripes = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock lockFor(String key) {
+        return stripes[stripeOf(key)];
+    }
+
+    // Distinct stripes covering all keys, in stripe order. Callers that hold
+    // several stripes must acquire them in this order to avoid deadlock.
+    public List<ReentrantLock> locksFor(Collection<String> keys) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (String key : keys) {
+            indexes.add(stripeOf(key));
+        }
+        List<ReentrantLock> locks = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            locks.add(stripes[index]);
+        }
+        return locks;
+    }
+
+    private int stripeOf(String key) {
+        return (key.hashCode() & 0x7fffffff) % stripes.length;
+    }
+}
\ No newline at end of file
@@ -1,4 +1,6 @@
 public class Suite extends Room {
+    private static final long serialVersionUID = 4350504395341207599L;
+
     public Suite(String roomNumber, double price, int capacity) {
         super(roomNumber, price, capacity);
     }
@@ -1,40 +1,119 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+public class User implements Serializable {
+    private static final long serialVersionUID = 8257337100404698285L;
 
-public class User {
     private String userId;
     private String name;
     private String email;
-    private List<Reservation> reservations;
+    private Map<String, Reservation> reservations; // reservationID -> Reservation, in booking order
+    private transient NavigableMap<StayKey, Reservation> byCheckIn; // built on first paged read
 
     public User(String userId, String name, String email) {
         this.userId = userId;
         this.name = name;
         this.email = email;
-        this.reservations = new ArrayList<>();
+        this.reservations = new LinkedHashMap<>();
     }
 
-    public void addReservation(Reservation reservation) {
-        reservations.add(reservation);
+    // The single-file edition stored reservations as a List; accept both shapes
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        userId = (String) fields.get("userId", null);
+        name = (String) fields.get("name", null);
+        email = (String) fields.get("email", null);
+        Object stored = fields.get("reservations", null);
+        if (stored instanceof Map) {
+            reservations = (Map<String, Reservation>) stored;
+        } else {
+            reservations = new LinkedHashMap<>();
+            if (stored instanceof List) {
+                for (Object res : (List<?>) stored) {
+                    reservations.put(((Reservation) res).getReservationId(), (Reservation) res);
+                }
+            }
+        }
     }
 
-    public boolean cancelReservation(String reservationId) {
-        for (Reservation res : reservations) {
-            if (res.getReservationId().equals(reservationId) && !res.isCancelled()) {
-                res.cancelReservation();
-                return true;
-            }
+    public synchronized void addReservation(Reservation reservation) {
+        reservations.put(reservation.getReservationId(), reservation);
+        if (byCheckIn != null) {
+            byCheckIn.put(new StayKey(reservation), reservation);
+        }
+    }
+
+    public synchronized boolean cancelReservation(String reservationId) {
+        Reservation res = reservations.get(reservationId);
+        if (res != null && !res.isCancelled()) {
+            res.cancelReservation();
+            return true;
         }
         return false;
     }
 
+    public synchronized void removeReservation(String reservationId) {
+        Reservation res = reservations.remove(reservationId);
+        if (res != null && byCheckIn != null) {
+            byCheckIn.remove(new StayKey(res));
+        }
+    }
+
+    // Walks the check-in index from the cursor (or fromDate) and stops after
+    // pageSize matches, so a page costs the same however long the history is.
+    public ReservationPage getReservations(ReservationStatus status, LocalDate fromDate,
+                                           int pageSize, String cursor) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        StayKey after = StayKey.after(fromDate, cursor);
+        NavigableMap<StayKey, Reservation> stays = after != null ? index().tailMap(after, false) : index();
+
+        List<Reservation> page = new ArrayList<>(Math.min(pageSize, 64));
+        Iterator<Map.Entry<StayKey, Reservation>> it = stays.entrySet().iterator();
+        StayKey last = null;
+        while (it.hasNext() && page.size() < pageSize) {
+            Map.Entry<StayKey, Reservation> entry = it.next();
+            if (status.matches(entry.getValue())) {
+                page.add(entry.getValue());
+                last = entry.getKey();
+            }
+        }
+        boolean more = page.size() == pageSize && it.hasNext();
+        return new ReservationPage(page, more ? last.toString() : null);
+    }
+
+    private synchronized NavigableMap<StayKey, Reservation> index() {
+        if (byCheckIn == null) {
+            byCheckIn = new ConcurrentSkipListMap<>();
+            for (Reservation res : reservations.values()) {
+                byCheckIn.put(new StayKey(res), res);
+            }
+        }
+        return byCheckIn;
+    }
+
+    public synchronized Reservation getReservation(String reservationId) {
+        return reservations.get(reservationId);
+    }
+
     // Getters
     public String getUserId() { return userId; }
     public String getName() { return name; }
     public String getEmail() { return email; }
-    public List<Reservation> getReservations() {
+    public synchronized List<Reservation> getReservations() {
         List<Reservation> activeReservations = new ArrayList<>();
-        for (Reservation res : reservations) {
+        for (Reservation res : reservations.values()) {
             if (!res.isCancelled()) {
                 activeReservations.add(res);
             }
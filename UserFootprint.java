@@ -0,0 +1,88 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Startup time and retained heap for a guest database of N users of whom K
+// have a stay in the book: a snapshot listing every user versus a Hotel whose
+// users stay in UserStore segments, before and after paging in idle guests.
+//   java -Xmx4g UserFootprint [users] [activeUsers]
+public class UserFootprint {
+    private static final int LOOKUPS = 50_000;
+
+    public static void main(String[] args) throws Exception {
+        int userCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int activeCount = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        Path dir = Files.createTempDirectory("hotel-users");
+
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rooms.add(new StandardRoom("R" + i, 99.99, 2));
+        }
+        Map<String, User> users = new HashMap<>();
+        for (int i = 0; i < userCount; i++) {
+            users.put("user-" + i, new User("user-" + i, "Guest " + i, "user-" + i + "@example.com"));
+        }
+        ReservationIdGenerator ids = new ReservationIdGenerator();
+        LocalDate start = LocalDate.now().plusDays(1);
+        List<Reservation> reservations = new ArrayList<>(activeCount);
+        for (int i = 0; i < activeCount; i++) {
+            User user = users.get("user-" + (i * (userCount / activeCount)));
+            LocalDate checkIn = start.plusDays(i / rooms.size() * 2);
+            Reservation res = Reservation.restore(ids.nextReservationId(), user, rooms.get(i % rooms.size()),
+                    checkIn, checkIn.plusDays(1), true, false, 99.99);
+            reservations.add(res);
+            user.addReservation(res);
+        }
+
+        Path everyone = dir.resolve("all-users.snap");
+        BinarySnapshot.write(new HotelData(rooms, reservations, users), everyone);
+        Path current = Files.createDirectories(dir.resolve("current"));
+        new StorageManager(current, FsyncPolicy.OS_MANAGED, 0).saveData(rooms, reservations, users);
+        users = null;
+        reservations = null;
+
+        System.out.printf("%d users, %d with a stay in the book%n", userCount, activeCount);
+        System.out.printf("  %-40s %10s %10s%n", "layout", "load ms", "heap MB");
+
+        long before = usedHeap();
+        long begin = System.nanoTime();
+        HotelData all = BinarySnapshot.read(everyone);
+        double loadMillis = (System.nanoTime() - begin) / 1e6;
+        System.out.printf("  %-40s %10.0f %10.1f%n", "snapshot listing every user", loadMillis,
+                (usedHeap() - before) / 1048576.0);
+        if (all.getUsers().size() != userCount) throw new IllegalStateException();
+        all = null;
+
+        before = usedHeap();
+        begin = System.nanoTime();
+        Hotel hotel = new Hotel("Footprint", new StorageManager(current, FsyncPolicy.OS_MANAGED, 0));
+        loadMillis = (System.nanoTime() - begin) / 1e6;
+        System.out.printf("  %-40s %10.0f %10.1f%n", "Hotel with users on disk", loadMillis,
+                (usedHeap() - before) / 1048576.0);
+
+        begin = System.nanoTime();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < LOOKUPS; i++) {
+            if (hotel.getUser("user-" + random.nextInt(userCount)) == null) throw new IllegalStateException();
+        }
+        double lookupMicros = (System.nanoTime() - begin) / 1e3 / LOOKUPS;
+        System.out.printf("  %-40s %10s %10.1f%n", "  after " + LOOKUPS + " random lookups", "",
+                (usedHeap() - before) / 1048576.0);
+        System.out.printf("  %.1f us per lookup%n", lookupMicros);
+        if (hotel.getRooms().size() != 1000) throw new IllegalStateException();
+        System.exit(0);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,443 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Registered guests, kept on disk and paged in on first access.
+//
+// Profiles live in immutable segment files sorted by user ID:
+//   header   magic, version, count, index offset
+//   records  id, name, email as length-prefixed UTF-8
+//   index    one record offset per user, in ID order
+// Lookups binary-search the segments newest first through a MappedByteBuffer.
+// Registrations stay in memory until the next checkpoint writes them as a new
+// segment, and a segment is merged into the one before it once it is at least
+// half as big, so a lookup only ever searches a handful of segments.
+//
+// In memory, a bounded LRU keeps recently used guests and lets idle ones go.
+// A weak index maps each ID to its live User, so a guest still referenced
+// elsewhere (by a stay in the book or by a caller) is found again rather than
+// loaded a second time.
+public class UserStore implements UserStoreMBean {
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".usr";
+    private static final int MAGIC = 0x48544C55; // "HTLU"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 2 + 2 + 4 + 4;
+    private static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    private final Path directory;
+    private final int cacheSize;
+    private final Map<String, Resident> residents = new ConcurrentHashMap<>();
+    private final ReferenceQueue<User> collected = new ReferenceQueue<>();
+    private final LinkedHashMap<String, User> recent; // guarded by this
+    private Map<String, User> pending = new HashMap<>(); // registered since the last capture
+    private Map<String, User> flushing = new HashMap<>(); // captured, not yet in a segment
+    private volatile List<Segment> segments; // newest first; null until opened
+    private final Object flushLock = new Object();
+    private int nextSegment = 1;
+    private long hits;
+    private long loads;
+    private long evictions;
+
+    private static class Resident extends WeakReference<User> {
+        final String userId;
+
+        Resident(User user, ReferenceQueue<User> queue) {
+            super(user, queue);
+            this.userId = user.getUserId();
+        }
+    }
+
+    private static class Segment {
+        final Path path;
+        final int number;
+        final MappedByteBuffer buf;
+        final int count;
+        final int indexOffset;
+
+        Segment(Path path, int number) throws IOException {
+            this.path = path;
+            this.number = number;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (buf.limit() < HEADER_SIZE || buf.getInt(0) != MAGIC) {
+                throw new IOException("Not a user segment: " + path);
+            }
+            if (buf.getShort(4) != VERSION) {
+                throw new IOException("Unsupported user segment version " + buf.getShort(4));
+            }
+            count = buf.getInt(8);
+            indexOffset = buf.getInt(12);
+        }
+
+        // Position of userId in the segment, or -1
+        int find(String userId) {
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int c = field(mid, 0).compareTo(userId);
+                if (c < 0) {
+                    low = mid + 1;
+                } else if (c > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        // Field 0 is the ID, 1 the name and 2 the email
+        String field(int index, int field) {
+            int pos = buf.getInt(indexOffset + index * 4);
+            for (int i = 0; i < field; i++) {
+                pos += 4 + buf.getInt(pos);
+            }
+            byte[] bytes = new byte[buf.getInt(pos)];
+            buf.get(pos + 4, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        User user(int index) {
+            return new User(field(index, 0), field(index, 1), field(index, 2));
+        }
+    }
+
+    private static class SegmentWriter implements AutoCloseable {
+        private final FileOutputStream fos;
+        private final DataOutputStream out;
+        private int[] offsets = new int[1024];
+        private int count;
+        private long position = HEADER_SIZE;
+
+        SegmentWriter(Path file) throws IOException {
+            fos = new FileOutputStream(file.toFile());
+            out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16));
+            out.write(new byte[HEADER_SIZE]); // filled in by finish
+        }
+
+        void add(User user) throws IOException {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = (int) position;
+            writeField(user.getUserId());
+            writeField(user.getName());
+            writeField(user.getEmail());
+            if (position > Integer.MAX_VALUE) {
+                throw new IOException("User segment too large");
+            }
+        }
+
+        private void writeField(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            position += 4 + bytes.length;
+        }
+
+        void finish() throws IOException {
+            for (int i = 0; i < count; i++) {
+                out.writeInt(offsets[i]);
+            }
+            out.flush();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putInt(count).putInt((int) position).flip();
+            fos.getChannel().write(header, 0);
+            fos.getFD().sync();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    public UserStore(Path directory) {
+        this(directory, DEFAULT_CACHE_SIZE);
+    }
+
+    public UserStore(Path directory, int cacheSize) {
+        this.directory = directory;
+        this.cacheSize = cacheSize;
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, User> eldest) {
+                if (size() > UserStore.this.cacheSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // The registered user with this ID, read from disk if it is not in memory;
+    // null if there is none.
+    public User get(String userId) {
+        expungeCollected();
+        User user = resident(userId);
+        if (user != null) {
+            hit(user);
+            return user;
+        }
+        User loaded = read(userId);
+        if (loaded == null) return null;
+        synchronized (this) {
+            // Another thread may have loaded or registered it meanwhile
+            user = resident(userId);
+            if (user == null) {
+                user = loaded;
+                residents.put(userId, new Resident(user, collected));
+            }
+            loads++;
+            recent.put(userId, user);
+        }
+        return user;
+    }
+
+    // Makes user the registered one for its ID; it is written to disk at the
+    // next checkpoint.
+    public synchronized void register(User user) {
+        residents.put(user.getUserId(), new Resident(user, collected));
+        pending.put(user.getUserId(), user);
+        recent.put(user.getUserId(), user);
+    }
+
+    // Registers user unless its ID is taken, on disk or in memory; returns
+    // whether it did.
+    public boolean registerIfAbsent(User user) {
+        if (get(user.getUserId()) != null) return false;
+        synchronized (this) {
+            if (resident(user.getUserId()) != null) return false; // registered meanwhile
+            register(user);
+            return true;
+        }
+    }
+
+    public void registerAll(Collection<User> users) {
+        for (User user : users) {
+            register(user);
+        }
+    }
+
+    // Takes in a registered user restored with the stays that reference it.
+    // Anything not yet in a segment (a snapshot of the old layout listed every
+    // user) is queued for the next checkpoint.
+    public void adopt(Collection<User> users) {
+        for (User user : users) {
+            boolean stored = read(user.getUserId()) != null;
+            synchronized (this) {
+                residents.put(user.getUserId(), new Resident(user, collected));
+                if (!stored) {
+                    pending.put(user.getUserId(), user);
+                }
+            }
+        }
+    }
+
+    // The users of these stays that are still the registered ones for their
+    // IDs. A snapshot records only these; everyone else is in the segments.
+    public Map<String, User> registeredAmong(Collection<Reservation> reservations) {
+        Map<String, User> registered = new HashMap<>();
+        for (Reservation res : reservations) {
+            User user = res.getUser();
+            if (resident(user.getUserId()) == user) {
+                registered.put(user.getUserId(), user);
+            }
+        }
+        return registered;
+    }
+
+    public synchronized boolean hasPending() {
+        return !pending.isEmpty() || !flushing.isEmpty();
+    }
+
+    // Call with registrations excluded; flush then writes what was captured.
+    public synchronized void capturePending() {
+        if (flushing.isEmpty()) {
+            flushing = pending;
+        } else {
+            flushing.putAll(pending); // a failed flush is retried with the newer entries
+        }
+        pending = new HashMap<>();
+    }
+
+    // Writes the captured registrations as a new segment. Returns false if
+    // they are not on disk, in which case they are kept for the next attempt.
+    public boolean flush() {
+        synchronized (flushLock) {
+            List<User> batch;
+            synchronized (this) {
+                if (flushing.isEmpty()) return true;
+                batch = new ArrayList<>(flushing.values());
+            }
+            batch.sort(Comparator.comparing(User::getUserId));
+            try {
+                List<Segment> current = segments();
+                Files.createDirectories(directory);
+                Path file = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, nextSegment, SEGMENT_SUFFIX));
+                Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+                try (SegmentWriter writer = new SegmentWriter(tmp)) {
+                    for (User user : batch) {
+                        writer.add(user);
+                    }
+                    writer.finish();
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                List<Segment> next = new ArrayList<>(current.size() + 1);
+                next.add(new Segment(file, nextSegment++));
+                next.addAll(current);
+                segments = Collections.unmodifiableList(next);
+            } catch (IOException e) {
+                System.err.println("Error writing users: " + e.getMessage());
+                return false;
+            }
+            synchronized (this) {
+                flushing = new HashMap<>();
+            }
+            try {
+                compact();
+            } catch (IOException e) {
+                System.err.println("Error merging user segments: " + e.getMessage());
+            }
+            return true;
+        }
+    }
+
+    // Merges the newest segment into the one before it while it holds at
+    // least half as many users. The merge takes the newer segment's name, so a
+    // crash before the older file is deleted only leaves a duplicate.
+    private void compact() throws IOException {
+        List<Segment> current = segments;
+        while (current.size() >= 2 && current.get(0).count * 2L >= current.get(1).count) {
+            Segment newer = current.get(0);
+            Segment older = current.get(1);
+            Path tmp = newer.path.resolveSibling(newer.path.getFileName() + ".tmp");
+            try (SegmentWriter writer = new SegmentWriter(tmp)) {
+                int i = 0;
+                int j = 0;
+                while (i < older.count || j < newer.count) {
+                    int c = i == older.count ? 1 : j == newer.count ? -1
+                            : older.field(i, 0).compareTo(newer.field(j, 0));
+                    if (c < 0) {
+                        writer.add(older.user(i++));
+                    } else {
+                        if (c == 0) i++; // re-registered: the newer profile wins
+                        writer.add(newer.user(j++));
+                    }
+                }
+                writer.finish();
+            }
+            Files.move(tmp, newer.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(older.path);
+            List<Segment> next = new ArrayList<>(current.size() - 1);
+            next.add(new Segment(newer.path, newer.number));
+            next.addAll(current.subList(2, current.size()));
+            segments = current = Collections.unmodifiableList(next);
+        }
+    }
+
+    private User resident(String userId) {
+        Resident ref = residents.get(userId);
+        return ref != null ? ref.get() : null;
+    }
+
+    private synchronized void hit(User user) {
+        hits++;
+        recent.put(user.getUserId(), user);
+    }
+
+    private User read(String userId) {
+        for (Segment segment : segments()) {
+            int index = segment.find(userId);
+            if (index >= 0) {
+                return segment.user(index);
+            }
+        }
+        return null;
+    }
+
+    // Drops index entries whose User has been garbage collected
+    private void expungeCollected() {
+        Reference<? extends User> ref;
+        while ((ref = collected.poll()) != null) {
+            Resident resident = (Resident) ref;
+            residents.remove(resident.userId, resident);
+        }
+    }
+
+    private List<Segment> segments() {
+        List<Segment> current = segments;
+        return current != null ? current : open();
+    }
+
+    private synchronized List<Segment> open() {
+        if (segments != null) return segments;
+        List<Segment> opened = new ArrayList<>();
+        if (Files.isDirectory(directory)) {
+            List<Path> files;
+            try (Stream<Path> list = Files.list(directory)) {
+                files = list.filter(p -> {
+                    String name = p.getFileName().toString();
+                    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                }).sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+            } catch (IOException e) {
+                System.err.println("Error listing user segments: " + e.getMessage());
+                files = Collections.emptyList();
+            }
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                int number = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(),
+                        name.length() - SEGMENT_SUFFIX.length()));
+                nextSegment = Math.max(nextSegment, number + 1);
+                try {
+                    opened.add(new Segment(file, number));
+                } catch (IOException e) {
+                    System.err.println("Error opening user segment: " + e.getMessage());
+                }
+            }
+        }
+        segments = Collections.unmodifiableList(opened);
+        return segments;
+    }
+
+    @Override public synchronized long getHits() { return hits; }
+    @Override public synchronized long getLoads() { return loads; }
+    @Override public synchronized long getEvictions() { return evictions; }
+    @Override public synchronized int getCachedCount() { return recent.size(); }
+    @Override public int getResidentCount() { return residents.size(); }
+    @Override public int getSegmentCount() { return segments().size(); }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("userStore cached=%d resident=%d hits=%d loads=%d evictions=%d segments=%d",
+                recent.size(), residents.size(), hits, loads, evictions, segments().size());
+    }
+}
\ No newline at end of file
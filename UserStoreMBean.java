@@ -0,0 +1,8 @@
+public interface UserStoreMBean {
+    long getHits();
+    long getLoads();
+    long getEvictions();
+    int getCachedCount();
+    int getResidentCount();
+    int getSegmentCount();
+}
\ No newline at end of file
@@ -0,0 +1,92 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Writes a reproducible synthetic command stream for BatchRunner:
+//   java WorkloadGenerator <operations> [seed] [rooms] [outputFile]
+//
+// The stream defines the rooms, then simulates days passing. Each operation
+// is a search, booking, cancellation or history view. Lead times are
+// exponential, stays are short-biased, and a share of bookings are later
+// cancelled.
+public class WorkloadGenerator {
+    private static final int OPERATIONS_PER_DAY = 2000;
+    private static final int USERS = 50_000;
+    private static final double SEARCH_SHARE = 0.60;
+    private static final double BOOK_SHARE = 0.30;
+    private static final double MEAN_LEAD_DAYS = 30;
+    private static final double CANCELLATION_RATE = 0.15;
+    private static final int[] STAY_NIGHTS = {1, 1, 1, 2, 2, 2, 3, 3, 4, 5, 7, 14};
+    private static final String[] ROOM_TYPES = {"Standard", "Deluxe", "Suite"};
+    private static final double[] ROOM_PRICES = {99.99, 149.99, 249.99};
+
+    private final SplittableRandom random;
+    private final int rooms;
+    private final List<String> bookings = new ArrayList<>(); // book index -> user
+    private LocalDate today = LocalDate.of(2030, 1, 1);
+
+    public WorkloadGenerator(long seed, int rooms) {
+        this.random = new SplittableRandom(seed);
+        this.rooms = rooms;
+    }
+
+    public void generate(long operations, Writer out) throws IOException {
+        for (int i = 0; i < rooms; i++) {
+            int type = i % ROOM_TYPES.length;
+            out.write("room " + ROOM_TYPES[type] + " R" + i + " " + ROOM_PRICES[type]
+                    + " " + (2 + type + random.nextInt(2)) + "\n");
+        }
+        for (long op = 0; op < operations; op++) {
+            if (op > 0 && op % OPERATIONS_PER_DAY == 0) {
+                today = today.plusDays(1);
+            }
+            double roll = random.nextDouble();
+            if (roll < SEARCH_SHARE) {
+                LocalDate checkIn = checkInDate();
+                out.write("search " + checkIn + " " + checkIn.plusDays(stayNights())
+                        + " " + (1 + random.nextInt(4)) + "\n");
+            } else if (roll < SEARCH_SHARE + BOOK_SHARE) {
+                String user = "guest-" + random.nextInt(USERS);
+                LocalDate checkIn = checkInDate();
+                out.write("book " + user + " R" + random.nextInt(rooms) + " " + checkIn
+                        + " " + checkIn.plusDays(stayNights()) + "\n");
+                bookings.add(user);
+            } else if (roll < SEARCH_SHARE + BOOK_SHARE * (1 + CANCELLATION_RATE) && !bookings.isEmpty()) {
+                // Cancellations mostly hit recent bookings
+                int index = Math.max(0, bookings.size() - 1 - (int) exponential(200));
+                out.write("cancel " + bookings.get(index) + " #" + index + "\n");
+            } else {
+                out.write("view guest-" + random.nextInt(USERS) + "\n");
+            }
+        }
+        out.flush();
+    }
+
+    private LocalDate checkInDate() {
+        return today.plusDays((long) exponential(MEAN_LEAD_DAYS));
+    }
+
+    private int stayNights() {
+        return STAY_NIGHTS[random.nextInt(STAY_NIGHTS.length)];
+    }
+
+    private double exponential(double mean) {
+        return -mean * Math.log(1 - random.nextDouble());
+    }
+
+    public static void main(String[] args) throws IOException {
+        long operations = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        int rooms = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        try (Writer out = new BufferedWriter(args.length > 3
+                ? new FileWriter(args[3]) : new OutputStreamWriter(System.out), 1 << 16)) {
+            new WorkloadGenerator(seed, rooms).generate(operations, out);
+        }
+    }
+}
\ No newline at end of file
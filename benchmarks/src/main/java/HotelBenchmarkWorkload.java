@@ -0,0 +1,105 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+import benchmarks.HotelWorkload;
+
+// Builds a hotel with roomCount rooms and historySize confirmed, forward-dated
+// stays in its book, then serves the operations measured by the benchmarks.
+// The stays are written as a snapshot rather than booked, since cancelled or
+// past stays would be archived at the first checkpoint and confirming through
+// Hotel clears the room's available flag.
+public class HotelBenchmarkWorkload implements HotelWorkload {
+    private static final int USERS = 1000;
+    private static final int HORIZON_DAYS = 730;
+    private static final LocalDate START = LocalDate.of(2030, 1, 1);
+
+    private Hotel hotel;
+    private List<Room> rooms;
+    private User[] users;
+    private int rangeNights;
+    private HotelData data;
+    private StorageManager saveTarget;
+    private Path directory;
+
+    @Override
+    public void setUp(Path directory, int roomCount, int historySize, int rangeNights) throws Exception {
+        this.directory = directory;
+        this.rangeNights = rangeNights;
+        PaymentProcessor.setGateway(amount -> CompletableFuture.completedFuture(true));
+
+        Path hotelDirectory = Files.createDirectories(directory.resolve("hotel"));
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Room> seededRooms = new ArrayList<>(roomCount);
+        for (int i = 0; i < roomCount; i++) {
+            String number = "B" + i;
+            int capacity = 1 + random.nextInt(4);
+            switch (i % 3) {
+                case 0: seededRooms.add(new StandardRoom(number, 99.99, capacity)); break;
+                case 1: seededRooms.add(new DeluxeRoom(number, 149.99, capacity)); break;
+                default: seededRooms.add(new Suite(number, 249.99, capacity)); break;
+            }
+        }
+        Map<String, User> seededUsers = new HashMap<>();
+        for (int i = 0; i < USERS; i++) {
+            seededUsers.put("bench-" + i, new User("bench-" + i, "Guest " + i, "bench-" + i + "@example.com"));
+        }
+        // Back-to-back stays per room from START on, so none overlap or expire
+        ReservationIdGenerator ids = new ReservationIdGenerator();
+        List<Reservation> seeded = new ArrayList<>(historySize);
+        for (int i = 0; i < historySize; i++) {
+            Room room = seededRooms.get(i % roomCount);
+            User user = seededUsers.get("bench-" + random.nextInt(USERS));
+            LocalDate checkIn = START.plusDays((long) (i / roomCount) * (rangeNights + 1));
+            Reservation res = Reservation.restore(ids.nextReservationId(), user, room, checkIn,
+                    checkIn.plusDays(rangeNights), true, false, room.getPrice() * rangeNights);
+            seeded.add(res);
+            user.addReservation(res);
+        }
+        new StorageManager(hotelDirectory, FsyncPolicy.OS_MANAGED, 0).saveData(seededRooms, seeded, seededUsers);
+
+        hotel = new Hotel("Benchmark", new StorageManager(hotelDirectory, FsyncPolicy.OS_MANAGED, 0));
+        rooms = hotel.getRooms();
+        users = new User[USERS];
+        for (int i = 0; i < USERS; i++) {
+            users[i] = hotel.getUser("bench-" + i);
+        }
+
+        data = new StorageManager(directory.resolve("hotel")).loadData();
+        saveTarget = new StorageManager(Files.createDirectories(directory.resolve("copy")));
+        saveTarget.saveData(data.getRooms(), data.getReservations(), data.getUsers());
+    }
+
+    @Override
+    public int searchAvailableRooms() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDate checkIn = START.plusDays(random.nextInt(HORIZON_DAYS));
+        return hotel.searchAvailableRooms(checkIn, checkIn.plusDays(rangeNights), 1 + random.nextInt(4)).size();
+    }
+
+    @Override
+    public boolean makeAndCancelReservation() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        User user = users[random.nextInt(users.length)];
+        Room room = rooms.get(random.nextInt(rooms.size()));
+        LocalDate checkIn = START.plusDays(random.nextInt(HORIZON_DAYS));
+        Reservation res = hotel.makeReservation(user, room.getRoomNumber(), checkIn, checkIn.plusDays(rangeNights));
+        return res != null && hotel.cancelReservation(user.getUserId(), res.getReservationId());
+    }
+
+    @Override
+    public void saveData() {
+        saveTarget.saveData(data.getRooms(), data.getReservations(), data.getUsers());
+    }
+
+    @Override
+    public int loadData() {
+        return new StorageManager(directory.resolve("copy")).loadData().getReservations().size();
+    }
+}
\ No newline at end of file
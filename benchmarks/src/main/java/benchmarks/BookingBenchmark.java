@@ -0,0 +1,62 @@
+package benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Search and booking latency as the property and its booking history grow.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingBenchmark {
+    @Param({"100", "1000", "10000"})
+    int roomCount;
+
+    @Param({"0", "10000", "100000"})
+    int historySize;
+
+    @Param({"1", "7", "30"})
+    int rangeNights;
+
+    private Path directory;
+    private HotelWorkload workload;
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("hotel-bench");
+        workload = HotelWorkload.create();
+        workload.setUp(directory, roomCount, historySize, rangeNights);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkFiles.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public int searchAvailableRooms() {
+        return workload.searchAvailableRooms();
+    }
+
+    // Booking and cancelling together keeps the book at a steady size.
+    @Benchmark
+    public boolean makeAndCancelReservation() {
+        return workload.makeAndCancelReservation();
+    }
+}
\ No newline at end of file
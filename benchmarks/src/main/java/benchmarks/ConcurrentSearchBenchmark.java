@@ -0,0 +1,65 @@
+package benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Search throughput while bookings run on other threads. Run with -tg to vary
+// the searcher count (e.g. -tg 7,1) and check searches scale with cores.
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentSearchBenchmark {
+    @Param({"1000"})
+    int roomCount;
+
+    @Param({"7"})
+    int rangeNights;
+
+    private Path directory;
+    private HotelWorkload workload;
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("hotel-bench");
+        workload = HotelWorkload.create();
+        workload.setUp(directory, roomCount, 0, rangeNights);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkFiles.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public int search() {
+        return workload.searchAvailableRooms();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public boolean book() {
+        return workload.makeAndCancelReservation();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,23 @@
+package benchmarks;
+
+import java.nio.file.Path;
+
+// Operations the benchmarks drive against a Hotel. JMH only generates code for
+// benchmarks in a named package and the hotel classes live in the unnamed one,
+// so the implementation (HotelBenchmarkWorkload) sits in the unnamed package
+// and is reached through this interface.
+public interface HotelWorkload {
+    void setUp(Path directory, int roomCount, int historySize, int rangeNights) throws Exception;
+
+    int searchAvailableRooms();
+
+    boolean makeAndCancelReservation();
+
+    void saveData();
+
+    int loadData();
+
+    static HotelWorkload create() throws ReflectiveOperationException {
+        return (HotelWorkload) Class.forName("HotelBenchmarkWorkload").getDeclaredConstructor().newInstance();
+    }
+}
\ No newline at end of file
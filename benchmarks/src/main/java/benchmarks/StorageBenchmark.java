@@ -0,0 +1,58 @@
+package benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Full snapshot write and load cost as the stored history grows.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+    @Param({"100", "1000"})
+    int roomCount;
+
+    @Param({"1000", "100000"})
+    int historySize;
+
+    private Path directory;
+    private HotelWorkload workload;
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("hotel-bench");
+        workload = HotelWorkload.create();
+        workload.setUp(directory, roomCount, historySize, 2);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkFiles.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void saveData() {
+        workload.saveData();
+    }
+
+    @Benchmark
+    public int loadData() {
+        return workload.loadData();
+    }
+}
\ No newline at end of file